@@ -0,0 +1,135 @@
+package com.example.kierki.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Runs the benchmarks with the GC profiler, and compares the results with a recorded baseline.
+ * <p>
+ *     Every benchmark is recorded with its time per operation, and the bytes it allocates per operation.
+ *     A benchmark regressed if it got slower than the kierki.timeTolerance fraction allows (0.15 by default),
+ *     or allocates more than kierki.allocTolerance bytes per operation above the baseline (16 by default).
+ *     The allocations hardly change between runs, unlike the times, which also depend on the machine,
+ *     so a baseline should be recorded on the machine it's compared on.
+ * </p>
+ * <p>
+ *     Usage: BenchmarkRunner [regex] [--record]. The regex picks the benchmarks to run, all of them by default.
+ *     With --record, the results are merged into the baseline instead of being compared with it. The baseline
+ *     is read from, and written to, the file in the kierki.baseline property (benchmarks/baseline.txt).
+ *     The runner exits with status 1 if any benchmark regressed.
+ * </p>
+ */
+public class BenchmarkRunner {
+    private static final Path BASELINE = Path.of(System.getProperty("kierki.baseline", "benchmarks/baseline.txt"));
+    private static final double TIME_TOLERANCE = Double.parseDouble(System.getProperty("kierki.timeTolerance", "0.15"));
+    private static final double ALLOC_TOLERANCE = Double.parseDouble(System.getProperty("kierki.allocTolerance", "16"));
+    private static final String ALLOC_RESULT = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        List<String> arguments = new ArrayList<>(List.of(args));
+        boolean record = arguments.remove("--record");
+        String regex = arguments.isEmpty() ? "com.example.kierki.benchmarks.*" : arguments.get(0);
+
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(regex)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+
+        Map<String, double[]> baseline = load();
+        if (record) {
+            for (RunResult result : results) {
+                baseline.put(nameOf(result), new double[]{result.getPrimaryResult().getScore(), allocationOf(result)});
+            }
+            List<String> lines = new ArrayList<>();
+            lines.add("# benchmark, time per operation, bytes allocated per operation");
+            for (Map.Entry<String, double[]> entry : baseline.entrySet()) {
+                lines.add(String.format(Locale.ROOT, "%s %.3f %.1f", entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+            }
+            Files.write(BASELINE, lines);
+            System.out.println("Recorded " + results.size() + " benchmarks in " + BASELINE);
+            return;
+        }
+
+        int regressions = compare(results, baseline);
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmarks regressed");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Prints every benchmark's result next to its baseline.
+     * @return the amount of benchmarks which regressed
+     */
+    private static int compare(Collection<RunResult> results, Map<String, double[]> baseline) {
+        int regressions = 0;
+        System.out.printf("%n%-70s %12s %12s %10s %10s%n", "Benchmark", "time", "baseline", "B/op", "baseline");
+        for (RunResult result : results) {
+            String name = nameOf(result);
+            double time = result.getPrimaryResult().getScore();
+            double alloc = allocationOf(result);
+            double[] base = baseline.get(name);
+            if (base == null) {
+                System.out.printf("%-70s %12.2f %12s %10.1f %10s%n", name, time, "-", alloc, "-");
+                continue;
+            }
+
+            boolean slower = time > base[0] * (1 + TIME_TOLERANCE);
+            boolean allocates = alloc > base[1] + ALLOC_TOLERANCE;
+            System.out.printf("%-70s %12.2f %12.2f %10.1f %10.1f%s%n", name, time, base[0], alloc, base[1],
+                    slower || allocates ? "  REGRESSED" : "");
+            if (slower || allocates) regressions++;
+        }
+        return regressions;
+    }
+
+    /**
+     * @return the time and the allocations of every benchmark in the baseline, by name
+     */
+    private static Map<String, double[]> load() throws IOException {
+        Map<String, double[]> baseline = new TreeMap<>();
+        if (Files.exists(BASELINE)) {
+            for (String line : Files.readAllLines(BASELINE)) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                String[] columns = line.trim().split("\\s+");
+                baseline.put(columns[0], new double[]{Double.parseDouble(columns[1]), Double.parseDouble(columns[2])});
+            }
+        }
+        return baseline;
+    }
+
+    /**
+     * @return the benchmark's simple name, followed by its parameters, like GameLogicBenchmark.validateMove:round=7
+     */
+    private static String nameOf(RunResult result) {
+        String benchmark = result.getParams().getBenchmark();
+        StringBuilder name = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+        String separator = ":";
+        for (String key : new TreeSet<>(result.getParams().getParamsKeys())) {
+            name.append(separator).append(key).append('=').append(result.getParams().getParam(key));
+            separator = ",";
+        }
+        return name.toString();
+    }
+
+    /**
+     * @return the bytes the benchmark allocated per operation, as measured by the GC profiler
+     */
+    private static double allocationOf(RunResult result) {
+        for (Map.Entry<String, Result> secondary : result.getSecondaryResults().entrySet()) {
+            if (secondary.getKey().endsWith(ALLOC_RESULT)) {
+                return secondary.getValue().getScore();
+            }
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.kierki.benchmarks;
+
+import com.example.kierki.*;
+
+import java.io.IOException;
+
+/**
+ * The server's current protocol: every message is built with a MessageWriter, and read with a MessageReader.
+ */
+public class BinaryCodec implements MessageCodec {
+
+    @Override
+    public byte[] encode(SampleMessage message) {
+        MessageWriter writer = new MessageWriter().writeResponse(message.getResponse());
+        for (Object field : message.getFields()) {
+            if (field instanceof Integer value) writer.writeInt(value);
+            else if (field instanceof Byte value) writer.writeByte(value);
+            else if (field instanceof Boolean value) writer.writeBoolean(value);
+            else if (field instanceof String value) writer.writeString(value);
+            else if (field instanceof Card card) writer.writeCard(card);
+            else if (field instanceof Room room) writer.writeRoom(room);
+            else if (field instanceof RoomSummary summary) writer.writeRoomSummary(summary);
+            else if (field instanceof Invitation invitation) writer.writeInvitation(invitation);
+            else throw new IllegalArgumentException("The binary protocol can't send " + field.getClass());
+        }
+        return writer.toByteArray();
+    }
+
+    @Override
+    public Object decode(SampleMessage message, byte[] payload) throws IOException {
+        MessageReader reader = new MessageReader(payload);
+        Object last = reader.readResponse();
+        for (Object field : message.getFields()) {
+            if (field instanceof Integer) last = reader.readInt();
+            else if (field instanceof Byte) last = reader.readUnsignedByte();
+            else if (field instanceof Boolean) last = reader.readBoolean();
+            else if (field instanceof String) last = reader.readString();
+            else if (field instanceof Card) last = reader.readCard();
+            else if (field instanceof Room) last = reader.readRoom();
+            else if (field instanceof RoomSummary) last = reader.readRoomSummary();
+            else if (field instanceof Invitation) last = reader.readInvitation();
+            else throw new IllegalArgumentException("The binary protocol can't read " + field.getClass());
+        }
+        return last;
+    }
+}
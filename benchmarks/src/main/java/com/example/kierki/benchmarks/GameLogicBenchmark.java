@@ -0,0 +1,217 @@
+package com.example.kierki.benchmarks;
+
+import com.example.kierki.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+/**
+ * Benchmarks the server's game logic, the way ClientHandler runs it on a room's worker for every PLAY_CARD.
+ * <p>
+ *     Every state is a real Room, registered with the ClientHandler, with four players whose connections drop
+ *     whatever is sent to them. The rooms are set up in the middle of a round: the cards are dealt with a seeded
+ *     generator, and the first tricks are played at random, following the rules, so the hands and the table
+ *     look like those of an actual game. Run through BenchmarkRunner to get the allocations of every benchmark
+ *     too, and to compare them with the recorded baseline.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameLogicBenchmark {
+    private static final int TRICKS_PLAYED = 6;
+    private static final int CARDS_IN_ROUND = Card.CARDS_IN_DECK;
+
+    /**
+     * A room in the middle of a trick, with the player whose turn it is about to play.
+     */
+    @State(Scope.Thread)
+    public static class MidTrick extends RoomState {
+        @Param({"1", "6", "7"})
+        public int round;
+
+        @Param({"0", "1", "3"})
+        public int cardsOnTable;
+
+        @Setup
+        public void setup() {
+            setUp(1, round);
+            playTricks(TRICKS_PLAYED);
+            playCards(cardsOnTable);
+        }
+    }
+
+    /**
+     * A room with the fourth card of a trick just played, right before the trick is scored and taken.
+     */
+    @State(Scope.Thread)
+    public static class FullTrick extends RoomState {
+        @Param({"1", "6", "7"})
+        public int round;
+
+        @Setup
+        public void setup() {
+            setUp(2, round);
+            playTricks(TRICKS_PLAYED);
+            playCards(3);
+            playCard();
+        }
+    }
+
+    /**
+     * A room which deals and plays whole rounds, over and over.
+     */
+    @State(Scope.Thread)
+    public static class WholeRound extends RoomState {
+        @Param({"1", "6", "7"})
+        public int round;
+
+        @Setup
+        public void setup() {
+            setUp(3, round);
+        }
+    }
+
+    /**
+     * Checks every card of the deck, held or not, against the rules, for the player whose turn it is.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Card.CARDS_IN_DECK)
+    public void validateMove(MidTrick state, Blackhole blackhole) {
+        ClientHandler player = state.currentPlayer();
+        for (int i = 0; i < Card.CARDS_IN_DECK; i++) {
+            blackhole.consume(player.validateMove(Card.fromByte(i), state.roomId));
+        }
+    }
+
+    @Benchmark
+    public int calculatePoints(FullTrick state) {
+        return state.players[0].calculatePoints(state.roomId);
+    }
+
+    @Benchmark
+    public int pickLoosingPlayer(FullTrick state) {
+        return state.players[0].pickLoosingPlayer(state.roomId);
+    }
+
+    /**
+     * Deals all four hands, and sends every player their DEALT_CARDS message.
+     */
+    @Benchmark
+    public long dealCards(WholeRound state) {
+        state.players[0].startRound(state.room);
+        return state.room.getHand(0);
+    }
+
+    /**
+     * Plays a whole round, card by card, the way handlePlayCard does: every card is validated and played,
+     * and every fourth one ends the trick. The deal is part of it, but costs far less than the 52 cards.
+     */
+    @Benchmark
+    @OperationsPerInvocation(CARDS_IN_ROUND)
+    public int playCard(WholeRound state) {
+        state.room.resetTurnCounter();
+        state.room.dealHands();
+        state.playCards(CARDS_IN_ROUND);
+        return state.room.getCurrentTurn();
+    }
+
+    /**
+     * A room with four players, and the means of playing it on with random legal moves.
+     */
+    public abstract static class RoomState {
+        private static final Connection DISCARD = new DiscardingConnection();
+
+        protected final ClientHandler[] players = new ClientHandler[4];
+        protected Room room;
+        protected int roomId;
+        private RandomGenerator random;
+
+        /**
+         * Creates the room, seats the players, deals the cards, and moves on to the given round.
+         * @param roomId the ID of the room, different for every state, since the rooms are shared.
+         * @param round the round the room is set in.
+         */
+        protected void setUp(int roomId, int round) {
+            this.roomId = roomId;
+            this.random = new Dealer(Dealer.DEFAULT_ALGORITHM, 42L).forRoom(roomId);
+            for (int seat = 0; seat < players.length; seat++) {
+                players[seat] = new ClientHandler(DISCARD, seat + 1);
+            }
+
+            room = new Room(1, roomId, "player1");
+            room.setRandom(random);
+            room.subscribe(players[0]);
+            for (int seat = 1; seat < players.length; seat++) {
+                room.addPlayer(seat + 1, "player" + (seat + 1));
+                room.subscribe(players[seat]);
+            }
+            players[0].addRoom(roomId, room);
+
+            room.setCurrentRound(round);
+            room.dealHands();
+        }
+
+        protected void playTricks(int tricks) {
+            playCards(tricks * players.length);
+        }
+
+        /**
+         * Plays random legal cards for the players in turn, with the same calls handlePlayCard makes,
+         * ending every trick the cards complete.
+         * @param cards the amount of cards to play.
+         */
+        protected void playCards(int cards) {
+            for (int i = 0; i < cards; i++) {
+                ClientHandler player = playCard();
+                if (room.getCardsOnTable().size() == 4) {
+                    int points = player.calculatePoints(roomId);
+                    player.endTurn(roomId, player.pickLoosingPlayer(roomId), points);
+                }
+            }
+        }
+
+        /**
+         * Plays a random legal card for the player whose turn it is, leaving the trick on the table.
+         * @return the player who played the card
+         */
+        protected ClientHandler playCard() {
+            ClientHandler player = currentPlayer();
+            long legalMoves = Rules.legalMoves(room.getCurrentRound(), room.getHand(room.getSeat(player.getClientId())), room.getLedSuit());
+            Card card = Strategy.RANDOM.chooseCard(null, legalMoves, random);
+            if (!player.validateMove(card, roomId)) {
+                throw new IllegalStateException("The rules rejected a legal move");
+            }
+            player.playCard(roomId, card);
+            return player;
+        }
+
+        protected ClientHandler currentPlayer() {
+            return players[room.getSeat(room.getCurrentTurn())];
+        }
+    }
+
+    /**
+     * A connection which drops every message, so that only building them is measured.
+     */
+    private static class DiscardingConnection implements Connection {
+        private final OutboundQueue outbound = new OutboundQueue();
+
+        @Override
+        public void send(byte[] message, OverflowPolicy policy) {
+        }
+
+        @Override
+        public OutboundQueue getOutboundQueue() {
+            return outbound;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.kierki.benchmarks;
+
+import java.io.*;
+
+/**
+ * The protocol the server used before the binary one: every message is the Response, followed by its objects,
+ * written to one ObjectOutputStream kept open for the whole connection, and reset() before every message
+ * so that changed rooms aren't sent as back references to their old state.
+ * <p>
+ *     The stream's header is only written once, when the codec is created, just like on a real connection,
+ *     and the decoding side is a single ObjectInputStream reading the messages one after another.
+ * </p>
+ */
+public class JavaSerializationCodec implements MessageCodec {
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final ObjectOutputStream out;
+    private final SwappableInputStream source = new SwappableInputStream();
+    private final ObjectInputStream in;
+
+    public JavaSerializationCodec() throws IOException {
+        out = new ObjectOutputStream(buffer);
+        out.flush();
+        source.setPayload(buffer.toByteArray()); //the header
+        in = new ObjectInputStream(source);
+    }
+
+    @Override
+    public byte[] encode(SampleMessage message) throws IOException {
+        buffer.reset();
+        out.reset();
+        out.writeObject(message.getResponse());
+        for (Object field : message.getLegacyFields()) {
+            out.writeObject(field);
+        }
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    @Override
+    public Object decode(SampleMessage message, byte[] payload) throws IOException {
+        source.setPayload(payload);
+        try {
+            Object last = in.readObject();
+            for (int i = 0; i < message.getLegacyFields().length; i++) {
+                last = in.readObject();
+            }
+            return last;
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Feeds the ObjectInputStream one message at a time, like a socket whose next message just arrived.
+     */
+    private static class SwappableInputStream extends InputStream {
+        private byte[] payload = new byte[0];
+        private int position;
+
+        void setPayload(byte[] payload) {
+            this.payload = payload;
+            this.position = 0;
+        }
+
+        @Override
+        public int read() {
+            return position < payload.length ? payload[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (position >= payload.length) return -1;
+            int count = Math.min(length, payload.length - position);
+            System.arraycopy(payload, position, bytes, offset, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return payload.length - position;
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.example.kierki.benchmarks;
+
+import com.example.kierki.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads a running server with many headless players, and measures how quickly it answers their moves.
+ * <p>
+ *     The players are split in tables of four. At every table, all four players log in, the first one creates
+ *     a room, the others join it, and they play whole games of seven rounds, choosing random legal moves with
+ *     the shared Rules, until every table has played the given amount of games. The players speak the same
+ *     protocol as the Client, but without JavaFX, over non-blocking SocketChannels, so that thousands of them
+ *     fit in a handful of threads. All four players of a table live on the same event loop, so that they can
+ *     follow their game without any locking.
+ * </p>
+ * <p>
+ *     Two latencies are measured for every card played: from sending PLAY_CARD until the player gets its own
+ *     PLAYED_CARD back, and until each of the other three players gets the CARDS_UPDATE.
+ * </p>
+ * <p>
+ *     A frame the socket can't take at once is queued, and the player waits for the selector to report
+ *     the socket writable again, so a slow server never makes the event loop spin on a full socket buffer.
+ * </p>
+ * <p>
+ *     Usage: LoadGenerator [players] [games] [host] [port], run from the benchmarks jar:
+ *     java -cp benchmarks/target/benchmarks.jar com.example.kierki.benchmarks.LoadGenerator.
+ *     Thousands of players need a raised open file limit (ulimit -n), on both sides.
+ * </p>
+ */
+public class LoadGenerator {
+    private static final int PLAYERS = 4;
+    private static final long STALL_MILLIS = 60_000;
+
+    private final LatencyHistogram playedLatency = new LatencyHistogram();
+    private final LatencyHistogram updateLatency = new LatencyHistogram();
+    private final AtomicLong cardsPlayed = new AtomicLong();
+    private final AtomicLong gamesPlayed = new AtomicLong();
+    private final CountDownLatch finishedTables;
+    private final int gamesPerTable;
+
+    public LoadGenerator(int tables, int gamesPerTable) {
+        this.finishedTables = new CountDownLatch(tables);
+        this.gamesPerTable = gamesPerTable;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        String host = args.length > 2 ? args[2] : "127.0.0.1";
+        int port = args.length > 3 ? Integer.parseInt(args[3]) : Server.PORT;
+
+        int tables = players / PLAYERS;
+        if (tables == 0) {
+            throw new IllegalArgumentException("At least " + PLAYERS + " players are needed");
+        }
+        LoadGenerator generator = new LoadGenerator(tables, games);
+        int loops = Math.min(Runtime.getRuntime().availableProcessors(), tables);
+        List<EventLoop> eventLoops = new ArrayList<>();
+        for (int i = 0; i < loops; i++) {
+            eventLoops.add(generator.new EventLoop());
+        }
+
+        System.out.println("Connecting " + tables * PLAYERS + " players to " + host + ":" + port);
+        InetSocketAddress address = new InetSocketAddress(host, port);
+        for (int table = 0; table < tables; table++) {
+            eventLoops.get(table % loops).add(generator.new Table(address));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < loops; i++) {
+            Thread thread = new Thread(eventLoops.get(i), "load-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        boolean finished = generator.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(finished ? "Finished" : "Stalled, no game ended for " + STALL_MILLIS / 1000 + " s");
+        System.out.printf("Games:            %d in %.2f s, %.1f per second%n", generator.gamesPlayed.get(), seconds, generator.gamesPlayed.get() / seconds);
+        System.out.printf("Cards played:     %d, %.0f per second%n", generator.cardsPlayed.get(), generator.cardsPlayed.get() / seconds);
+        System.out.println("PLAY_CARD -> PLAYED_CARD:  " + generator.playedLatency.summary());
+        System.out.println("PLAY_CARD -> CARDS_UPDATE: " + generator.updateLatency.summary());
+        System.exit(finished ? 0 : 1);
+    }
+
+    /**
+     * Waits for every table to finish its games, printing the progress every few seconds.
+     * @return false if no game ended for a whole minute
+     */
+    private boolean await() throws InterruptedException {
+        long lastGames = 0;
+        long lastProgress = System.currentTimeMillis();
+        while (!finishedTables.await(5, TimeUnit.SECONDS)) {
+            long games = gamesPlayed.get();
+            System.out.println("Games: " + games + ", cards: " + cardsPlayed.get() + ", PLAY_CARD -> PLAYED_CARD p99: "
+                    + playedLatency.getPercentile(99) / 1000 + " us");
+            if (games != lastGames) {
+                lastGames = games;
+                lastProgress = System.currentTimeMillis();
+            } else if (System.currentTimeMillis() - lastProgress > STALL_MILLIS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A selector thread, running the players of some of the tables.
+     */
+    private class EventLoop implements Runnable {
+        private final Selector selector;
+
+        EventLoop() throws IOException {
+            this.selector = Selector.open();
+        }
+
+        /**
+         * Connects a table's players, and registers them with this loop. Only called before the loop starts.
+         */
+        void add(Table table) throws IOException {
+            for (Player player : table.players) {
+                player.channel.configureBlocking(false);
+                player.key = player.channel.register(selector, SelectionKey.OP_READ, player);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (selector.isOpen()) {
+                    selector.select();
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        Player player = (Player) key.attachment();
+                        try {
+                            if (key.isWritable()) player.flush();
+                            if (key.isReadable()) player.read();
+                        } catch (IOException e) {
+                            System.out.println("Player " + player.clientId + " lost its connection: " + e.getMessage());
+                            key.cancel();
+                            player.channel.close();
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Four players, playing their games together.
+     */
+    private class Table {
+        private final Player[] players = new Player[PLAYERS];
+        private int loggedIn;
+        private int gamesOver;
+        private int games;
+        private final long[] playSentAt = new long[PLAYERS]; //when each seat sent its last card, for the CARDS_UPDATE latency
+
+        Table(InetSocketAddress address) throws IOException {
+            for (int i = 0; i < PLAYERS; i++) {
+                players[i] = new Player(this, SocketChannel.open(address));
+            }
+        }
+
+        Player host() {
+            return players[0];
+        }
+
+        void loggedIn() throws IOException {
+            if (++loggedIn == PLAYERS) {
+                host().send(new MessageWriter().writeRequest(Request.CREATE_ROOM).toByteArray());
+            }
+        }
+
+        void roomCreated(int roomId) throws IOException {
+            for (int i = 1; i < PLAYERS; i++) {
+                players[i].send(new MessageWriter().writeRequest(Request.JOIN_ROOM).writeInt(roomId).toByteArray());
+            }
+        }
+
+        /**
+         * Starts the next game once all four players learned the last one is over.
+         */
+        void gameOver() throws IOException {
+            if (++gamesOver < PLAYERS) return;
+            gamesOver = 0;
+            games++;
+            gamesPlayed.incrementAndGet();
+            if (games < gamesPerTable) {
+                host().send(new MessageWriter().writeRequest(Request.CREATE_ROOM).toByteArray());
+            } else {
+                finishedTables.countDown();
+            }
+        }
+    }
+
+    /**
+     * A single headless player, following its game from the server's messages, and playing when it's its turn.
+     */
+    private class Player {
+        private final Table table;
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private ByteBuffer input = ByteBuffer.allocate(8192);
+        private final ArrayDeque<ByteBuffer> output = new ArrayDeque<>(); //frames the socket couldn't take yet
+        private int clientId = -1;
+        private Room room;
+        private long hand = Hands.EMPTY;
+        private int round = 1;
+        private int currentTurn;
+        private Suit ledSuit;
+        private int cardsOnTable;
+        private boolean waiting; //for its own card to come back
+        private long sentAt;
+
+        Player(Table table, SocketChannel channel) {
+            this.table = table;
+            this.channel = channel;
+        }
+
+        /**
+         * Reads whatever arrived, and handles every whole frame in it.
+         * @throws IOException if the connection was closed, or a frame is invalid
+         */
+        void read() throws IOException {
+            if (channel.read(input) == -1) throw new IOException("closed by the server");
+            input.flip();
+            while (input.remaining() >= Message.HEADER_SIZE) {
+                int length = input.getInt(input.position());
+                Message.checkLength(length);
+                if (input.remaining() < Message.HEADER_SIZE + length) {
+                    if (input.capacity() < Message.HEADER_SIZE + length) {
+                        input = ByteBuffer.allocate(Message.HEADER_SIZE + length).put(input);
+                        input.flip();
+                    }
+                    break;
+                }
+                byte[] payload = new byte[length];
+                input.position(input.position() + Message.HEADER_SIZE);
+                input.get(payload);
+                handle(payload);
+            }
+            input.compact();
+        }
+
+        private void handle(byte[] payload) throws IOException {
+            MessageReader message = new MessageReader(payload);
+            if (clientId == -1) { //the first message is the client's ID
+                clientId = message.readInt();
+                send(new MessageWriter().writeRequest(Request.REQUEST_USERNAME).writeString("load" + clientId).toByteArray());
+                return;
+            }
+
+            switch (message.readResponse()) {
+                case SET_USERNAME -> {
+                    if (!message.readBoolean()) throw new IOException("username taken");
+                    table.loggedIn();
+                }
+                case ROOM_CREATED -> {
+                    startGame(message.readRoom());
+                    table.roomCreated(room.getRoomId());
+                }
+                case JOINED_ROOM -> startGame(message.readRoom());
+                case ROOMS_UPDATE -> {
+                    Room update = message.readRoom();
+                    if (room != null && update.getRoomId() == room.getRoomId()) {
+                        room = update;
+                        currentTurn = update.getCurrentTurn();
+                    }
+                }
+                case DEALT_CARDS -> {
+                    int count = message.readUnsignedByte();
+                    hand = Hands.EMPTY;
+                    for (int i = 0; i < count; i++) {
+                        hand |= Hands.bit(message.readCard());
+                    }
+                }
+                case PLAYED_CARD -> {
+                    playedLatency.record(System.nanoTime() - sentAt);
+                    cardsPlayed.incrementAndGet();
+                    waiting = false;
+                    cardPlayed(message);
+                }
+                case CARDS_UPDATE -> {
+                    int seat = cardPlayed(message);
+                    updateLatency.record(System.nanoTime() - table.playSentAt[seat]);
+                }
+                case TURN_OVER -> {
+                    message.readInt();
+                    currentTurn = room.getConnectedPlayers().get(message.readUnsignedByte());
+                    cardsOnTable = 0;
+                    ledSuit = null;
+                }
+                case ROUND_OVER -> {
+                    message.readInt();
+                    round = message.readUnsignedByte();
+                    currentTurn = room.getConnectedPlayers().get(message.readUnsignedByte());
+                }
+                case GAME_OVER -> {
+                    room = null;
+                    hand = Hands.EMPTY;
+                    table.gameOver();
+                }
+                default -> {
+                }
+            }
+            playIfDue();
+        }
+
+        private void startGame(Room room) {
+            this.room = room;
+            this.round = room.getCurrentRound();
+            this.currentTurn = room.getCurrentTurn();
+            this.cardsOnTable = 0;
+            this.ledSuit = null;
+            this.waiting = false;
+        }
+
+        /**
+         * Puts a card played by anyone at the table on the table.
+         * @return the seat of the player who played it
+         */
+        private int cardPlayed(MessageReader message) throws IOException {
+            message.readInt();
+            int seat = message.readUnsignedByte();
+            Card card = message.readCard();
+            currentTurn = room.getConnectedPlayers().get(message.readUnsignedByte());
+            if (cardsOnTable++ == 0) ledSuit = card.getSuit();
+            return seat;
+        }
+
+        /**
+         * Plays a random legal card, if it's this player's turn.
+         */
+        private void playIfDue() throws IOException {
+            if (room == null || !room.isFull() || currentTurn != clientId || hand == Hands.EMPTY
+                    || waiting || cardsOnTable == PLAYERS) {
+                return;
+            }
+            long legalMoves = Rules.legalMoves(round, hand, ledSuit);
+            long chosen = legalMoves;
+            for (int skip = ThreadLocalRandom.current().nextInt(Hands.size(legalMoves)); skip > 0; skip--) {
+                chosen &= chosen - 1;
+            }
+            Card card = Card.fromByte(Long.numberOfTrailingZeros(chosen));
+            hand &= ~Hands.bit(card);
+            waiting = true;
+            sentAt = System.nanoTime();
+            table.playSentAt[room.getSeat(clientId)] = sentAt;
+            send(new MessageWriter().writeRequest(Request.PLAY_CARD).writeCard(card).toByteArray());
+        }
+
+        /**
+         * Writes a whole frame, or queues what the socket can't take, until it's writable again.
+         * The frames are tiny, so the socket's buffer almost always takes them at once.
+         */
+        void send(byte[] payload) throws IOException {
+            output.add(ByteBuffer.wrap(Message.frame(payload)));
+            if (output.size() == 1) flush();
+        }
+
+        /**
+         * Writes the queued frames in order, and asks the selector for OP_WRITE only while some are left.
+         */
+        void flush() throws IOException {
+            while (!output.isEmpty()) {
+                ByteBuffer frame = output.peek();
+                channel.write(frame);
+                if (frame.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                output.poll();
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.kierki.benchmarks;
+
+import java.io.IOException;
+
+/**
+ * A way of turning the server's messages into bytes and back, measured by SerializationBenchmark.
+ * <p>
+ *     A codec is created once per benchmark, like a connection's streams, so it may keep state between
+ *     messages, as long as every message can be decoded on its own after the ones before it.
+ * </p>
+ */
+public interface MessageCodec {
+
+    /**
+     * @param message the message to encode.
+     * @return the bytes sent on the wire for the message, without the frame's length
+     * @throws IOException if the message can't be encoded
+     */
+    byte[] encode(SampleMessage message) throws IOException;
+
+    /**
+     * @param message the message the payload was encoded from, telling which fields to read.
+     * @param payload the bytes produced by encode().
+     * @return the last field read, so that the decoding can't be optimized away
+     * @throws IOException if the payload can't be decoded
+     */
+    Object decode(SampleMessage message, byte[] payload) throws IOException;
+}
@@ -0,0 +1,141 @@
+package com.example.kierki.benchmarks;
+
+import com.example.kierki.*;
+import com.example.kierki.benchmarks.legacy.LegacyGame;
+
+import java.util.HashMap;
+
+/**
+ * A message of every Response type, filled in with what the server sends in the middle of a real game.
+ * <p>
+ *     The fields are those of the binary protocol, in the order MessageWriter writes them: Integer for writeInt,
+ *     Byte for writeByte, and the protocol's own classes for their writers. The legacy fields are the objects
+ *     the server used to write to its ObjectOutputStream for the same event: most game events came with
+ *     the whole Room attached, the lobby was the whole HashMap of rooms instead of a page of room summaries,
+ *     and every changed room was sent whole to every client. The messages added with the binary protocol get their closest equivalent.
+ * </p>
+ * <p>
+ *     The legacy rooms and cards are the frozen copies in the legacy package, not today's Room and Card: a legacy
+ *     Room carries its list of 52 mutable Cards, each with its owner's ID and whether it's still in hand, so
+ *     the Java serialization is measured on the object graph the old server really sent.
+ * </p>
+ */
+public class SampleMessage {
+    private static final int LOBBY_ROOMS = 20;
+
+    private final Response response;
+    private final Object[] fields;
+    private final Object[] legacyFields;
+
+    public SampleMessage(Response response, Object[] fields, Object[] legacyFields) {
+        this.response = response;
+        this.fields = fields;
+        this.legacyFields = legacyFields;
+    }
+
+    public SampleMessage(Response response, Object... fields) {
+        this(response, fields, fields);
+    }
+
+    /**
+     * @param response the message's type.
+     * @return a message of that type, sent during a game between four players
+     */
+    public static SampleMessage of(Response response) {
+        Room room = fullRoom(1);
+        Card card = room.getFirstCardOnTable();
+        com.example.kierki.benchmarks.legacy.Room legacyRoom = LegacyGame.fullRoom(1);
+        return switch (response) {
+            case SET_USERNAME -> new SampleMessage(response, new Object[]{true, "player1"}, new Object[]{true, "player1", LegacyGame.lobby(LOBBY_ROOMS)});
+            case ROOMS_UPDATE, JOINED_ROOM, ROOM_SNAPSHOT -> new SampleMessage(response, new Object[]{room}, new Object[]{legacyRoom});
+            case ROOM_CREATED -> new SampleMessage(response, new Object[]{new Room(1, 1, "player1")}, new Object[]{LegacyGame.newRoom(1, 1, "player1")});
+            case INVITATION -> new SampleMessage(response, new Invitation(1, "player1"));
+            case DEALT_CARDS -> {
+                Object[] fields = new Object[1 + Card.CARDS_IN_DECK / 4];
+                fields[0] = (byte) (fields.length - 1);
+                for (int i = 1; i < fields.length; i++) {
+                    fields[i] = Card.fromByte(i * 3);
+                }
+                yield new SampleMessage(response, fields, LegacyGame.hand(legacyRoom, 1).toArray());
+            }
+            case PLAYED_CARD, CARDS_UPDATE -> new SampleMessage(response, new Object[]{57, (byte) 1, card, (byte) 2},
+                    new Object[]{legacyRoom.getFirstCardOnTable(), legacyRoom});
+            case TURN_OVER -> new SampleMessage(response, new Object[]{58, (byte) 3, 140}, new Object[]{4, 140, legacyRoom});
+            case ROUND_OVER -> new SampleMessage(response, new Object[]{110, (byte) 4, (byte) 1}, new Object[]{legacyRoom});
+            case GAME_OVER -> new SampleMessage(response, new Object[]{738, 1, "player3"}, new Object[]{"player3", legacyRoom});
+            case LOBBY_PAGE -> {
+                HashMap<Integer, Room> lobby = lobby();
+                Object[] fields = new Object[2 + lobby.size()];
+                fields[0] = (byte) lobby.size();
+                int i = 1;
+                for (Room lobbyRoom : lobby.values()) {
+                    fields[i++] = RoomSummary.of(lobbyRoom);
+                }
+                fields[i] = false;
+                yield new SampleMessage(response, fields, new Object[]{LegacyGame.lobby(LOBBY_ROOMS)});
+            }
+            case ROOM_CLOSED -> new SampleMessage(response, 1);
+            case LOBBY_UPDATE -> {
+                Room changed = lobbyRoom(2, 2);
+                yield new SampleMessage(response, new Object[]{1, RoomSummary.of(changed), 1, 3}, new Object[]{LegacyGame.lobbyRoom(2, 2)});
+            }
+        };
+    }
+
+    /**
+     * @return a room of four players, in the 7th round, with two cards of a trick on the table
+     */
+    private static Room fullRoom(int roomId) {
+        Room room = new Room(1, roomId, "player1");
+        for (int player = 2; player <= 4; player++) {
+            room.addPlayer(player, "player" + player);
+        }
+        for (int round = 1; round < 7; round++) {
+            room.incrementCurrentRound();
+        }
+        for (int player = 1; player <= 4; player++) {
+            room.givePoints(player, player * 120);
+        }
+        room.putOnTable(1, Card.of(Suit.SPADE, 9));
+        room.putOnTable(2, Card.of(Suit.SPADE, 12));
+        room.setCurrentTurn(3);
+        return room;
+    }
+
+    private static Room lobbyRoom(int roomId, int players) {
+        Room room = new Room(roomId * 10, roomId, "host" + roomId);
+        for (int player = 1; player < players; player++) {
+            room.addPlayer(roomId * 10 + player, "player" + (roomId * 10 + player));
+        }
+        return room;
+    }
+
+    /**
+     * @return the rooms waiting for players, whose summaries make up a lobby page
+     */
+    private static HashMap<Integer, Room> lobby() {
+        HashMap<Integer, Room> lobby = new HashMap<>();
+        for (int roomId = 1; roomId <= LOBBY_ROOMS; roomId++) {
+            lobby.put(roomId, lobbyRoom(roomId, 1 + roomId % 3));
+        }
+        return lobby;
+    }
+
+    public Response getResponse() {
+        return response;
+    }
+
+    /**
+     * @return the fields of the binary protocol, not to be changed
+     */
+    Object[] getFields() {
+        return fields;
+    }
+
+    /**
+     * @return the objects the Java serialization protocol sent, not to be changed
+     */
+    Object[] getLegacyFields() {
+        return legacyFields;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.kierki.benchmarks;
+
+import com.example.kierki.Card;
+import com.example.kierki.Hands;
+import com.example.kierki.RoundScoring;
+import com.example.kierki.Scoring;
+import com.example.kierki.Suit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the table-driven Scoring with the chain of per-round branches it replaced.
+ * <p>
+ *     Both score the same random tricks, each stored the way its Room stores them: the old method reads
+ *     a HashMap from the player's ID to the card they played, as the Room did back then, and the tables read
+ *     the bitboard of the cards on the table, as the Room does now. Every round is benchmarked separately,
+ *     since the old method's cost depended on how far down the chain the round was.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoringBenchmark {
+    private static final int TRICKS = 1024;
+
+    @Param({"1", "2", "3", "4", "5", "6", "7"})
+    public int round;
+
+    private final List<HashMap<Integer, Card>> tricks = new ArrayList<>();
+    private final long[] tables = new long[TRICKS];
+    private final int[] trickNumbers = new int[TRICKS];
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        List<Card> deck = new ArrayList<>();
+        for (int i = 0; i < Card.CARDS_IN_DECK; i++) {
+            deck.add(Card.fromByte(i));
+        }
+
+        for (int i = 0; i < TRICKS; i++) {
+            Collections.shuffle(deck, random);
+            HashMap<Integer, Card> trick = new HashMap<>();
+            for (int player = 1; player <= 4; player++) {
+                trick.put(player, deck.get(player));
+                tables[i] |= Hands.bit(deck.get(player));
+            }
+            tricks.add(trick);
+            trickNumbers[i] = 1 + random.nextInt(RoundScoring.TRICKS_IN_ROUND);
+
+            int points = legacyPoints(round, trickNumbers[i], trick);
+            if (points != Scoring.STANDARD.score(round, tables[i], trickNumbers[i])
+                    || points != Scoring.STANDARD.score(round, trick.values(), trickNumbers[i])) {
+                throw new IllegalStateException("The scoring tables disagree with the old scoring in round " + round);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRICKS)
+    public void legacy(Blackhole blackhole) {
+        for (int i = 0; i < TRICKS; i++) {
+            blackhole.consume(legacyPoints(round, trickNumbers[i], tricks.get(i)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRICKS)
+    public void tables(Blackhole blackhole) {
+        for (int i = 0; i < TRICKS; i++) {
+            blackhole.consume(Scoring.STANDARD.score(round, tables[i], trickNumbers[i]));
+        }
+    }
+
+    /**
+     * ClientHandler.calculatePoints() as it was before the scoring tables, reading the round, the turn counter
+     * and the cards on the table from its arguments instead of the Room.
+     */
+    static int legacyPoints(int currentRound, int turnCounter, HashMap<Integer, Card> cardsOnTable) {
+        int points = 0;
+
+        if (currentRound == 1) {
+            points = 20;
+        }
+        else if (currentRound == 2) {
+            for (Map.Entry<Integer, Card> entry : cardsOnTable.entrySet()) {
+                if (entry.getValue().getSuit() == Suit.HEART) points += 20;
+            }
+        }
+        else if (currentRound == 3) {
+            for (Map.Entry<Integer, Card> entry : cardsOnTable.entrySet()) {
+                if (entry.getValue().getValue() == 12) points += 60;
+            }
+        }
+        else if (currentRound == 4) {
+            for (Map.Entry<Integer, Card> entry : cardsOnTable.entrySet()) {
+                if (entry.getValue().getValue() == 11 || entry.getValue().getValue() == 13) points += 30;
+            }
+        }
+        else if (currentRound == 5) {
+            for (Map.Entry<Integer, Card> entry : cardsOnTable.entrySet()) {
+                if (entry.getValue().getValue() == 13 && entry.getValue().getSuit() == Suit.HEART) points += 150;
+            }
+        }
+        else if (currentRound == 6) {
+            for (Map.Entry<Integer, Card> ignored : cardsOnTable.entrySet()) {
+                if (turnCounter == 7 || turnCounter == 13) points += 75;
+            }
+        }
+        else {
+            points += 20;
+            for (Map.Entry<Integer, Card> entry : cardsOnTable.entrySet()) {
+                if (entry.getValue().getSuit() == Suit.HEART) points += 20;
+                if (entry.getValue().getValue() == 12) points += 60;
+                if (entry.getValue().getValue() == 11 || entry.getValue().getValue() == 13) points += 30;
+                if (entry.getValue().getValue() == 13 && entry.getValue().getSuit() == Suit.HEART) points += 150;
+                if (turnCounter == 7 || turnCounter == 13) points += 75;
+            }
+        }
+
+        return points;
+    }
+}
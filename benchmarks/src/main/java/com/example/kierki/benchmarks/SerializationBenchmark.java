@@ -0,0 +1,89 @@
+package com.example.kierki.benchmarks;
+
+import com.example.kierki.Response;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long encoding and decoding every type of message takes, with every codec.
+ * <p>
+ *     The codecs are the Java serialization the server used to send its messages with, and the binary protocol
+ *     it sends them with now. Another encoding is measured by implementing MessageCodec, and adding it to
+ *     CODECS. Run through BenchmarkRunner to get the bytes allocated per message too. The bytes sent on the wire
+ *     don't depend on the run, so they are printed by this class's main method instead of being benchmarked.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+    static final Map<String, Callable<MessageCodec>> CODECS = new LinkedHashMap<>();
+
+    static {
+        CODECS.put("java", JavaSerializationCodec::new);
+        CODECS.put("binary", BinaryCodec::new);
+    }
+
+    @Param({"java", "binary"})
+    public String codec;
+
+    @Param({"SET_USERNAME", "ROOMS_UPDATE", "INVITATION", "JOINED_ROOM", "ROOM_CREATED", "DEALT_CARDS", "PLAYED_CARD",
+            "CARDS_UPDATE", "TURN_OVER", "ROUND_OVER", "GAME_OVER", "ROOM_SNAPSHOT", "LOBBY_PAGE", "LOBBY_UPDATE"})
+    public Response response;
+
+    private MessageCodec messageCodec;
+    private SampleMessage message;
+    private byte[] payload;
+
+    @Setup
+    public void setup() throws Exception {
+        messageCodec = CODECS.get(codec).call();
+        message = SampleMessage.of(response);
+        payload = messageCodec.encode(message);
+        messageCodec.decode(message, payload); //fails now rather than while measuring
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return messageCodec.encode(message);
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return messageCodec.decode(message, payload);
+    }
+
+    /**
+     * Prints the size of every message, with every codec, in bytes, without the frame's 4 byte length.
+     * Since the Java serialization stream is reset before every message, every message describes
+     * the classes of its objects all over again.
+     */
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-14s", "Response");
+        for (String name : CODECS.keySet()) {
+            System.out.printf(" %10s", name);
+        }
+        System.out.println();
+
+        Map<String, MessageCodec> codecs = new LinkedHashMap<>();
+        for (Map.Entry<String, Callable<MessageCodec>> entry : CODECS.entrySet()) {
+            codecs.put(entry.getKey(), entry.getValue().call());
+        }
+        for (Response response : Response.values()) {
+            SampleMessage message = SampleMessage.of(response);
+            System.out.printf("%-14s", response);
+            for (MessageCodec messageCodec : codecs.values()) {
+                System.out.printf(" %10d", messageCodec.encode(message).length);
+            }
+            System.out.println();
+        }
+    }
+}
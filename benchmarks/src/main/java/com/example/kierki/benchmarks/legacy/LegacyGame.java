@@ -0,0 +1,115 @@
+package com.example.kierki.benchmarks.legacy;
+
+import com.example.kierki.Suit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds the legacy Rooms the old server sent, in the state its ClientHandler left them in during a game.
+ * <p>
+ *     The cards are dealt the way the old server dealt them: the room's list of 52 cards is shuffled, and every
+ *     player marks 13 of them with their ID. A played card stays in the list, marked as no longer in hand,
+ *     and the table holds the very same Card objects.
+ * </p>
+ */
+public final class LegacyGame {
+    private static final int CARDS_IN_HAND = 13;
+
+    private LegacyGame() {
+    }
+
+    /**
+     * @return a room of four players, in the 7th round, with two cards of a trick on the table,
+     * like SampleMessage's room
+     */
+    public static Room fullRoom(int roomId) {
+        Room room = new Room(1, roomId, "player1");
+        for (int player = 2; player <= 4; player++) {
+            room.addPlayer(player, "player" + player);
+        }
+        for (int round = 1; round < 7; round++) {
+            room.incrementCurrentRound();
+        }
+        for (int player = 1; player <= 4; player++) {
+            room.givePoints(player, player * 120);
+        }
+
+        Collections.shuffle(room.getCards(), new Random(roomId));
+        for (int i = 0; i < room.getCards().size(); i++) {
+            room.getCards().get(i).setClientId(1 + i / CARDS_IN_HAND);
+        }
+        play(room, 1, Suit.SPADE, 9);
+        play(room, 2, Suit.SPADE, 12);
+        room.setCurrentTurn(3);
+        return room;
+    }
+
+    /**
+     * Plays a card from the room's list, as the old ClientHandler.playCard() did. Since the deal is random,
+     * the player first swaps one of their cards for it, so that every hand still holds 13 cards.
+     */
+    private static void play(Room room, int clientId, Suit suit, int value) {
+        for (Card card : room.getCards()) {
+            if (card.getSuit() == suit && card.getValue() == value) {
+                for (Card swapped : room.getCards()) {
+                    if (swapped.getClientId() == clientId && swapped.isInHand()) {
+                        swapped.setClientId(card.getClientId());
+                        break;
+                    }
+                }
+                card.setClientId(clientId);
+                card.setInHand(false);
+                room.changeTurn();
+                if (room.getCardsOnTable().isEmpty()) room.setFirstCardOnTable(card);
+                room.getCardsOnTable().put(clientId, card);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param room a room whose cards were dealt.
+     * @param clientId a player of the room.
+     * @return the player's cards, as the old server sent them one by one with DEALT_CARDS
+     */
+    public static List<Card> hand(Room room, int clientId) {
+        List<Card> hand = new ArrayList<>();
+        for (Card card : room.getCards()) {
+            if (card.getClientId() == clientId) hand.add(card);
+        }
+        return hand;
+    }
+
+    /**
+     * @return a room just created by its host, with no cards dealt yet
+     */
+    public static Room newRoom(int hostId, int roomId, String username) {
+        return new Room(hostId, roomId, username);
+    }
+
+    /**
+     * @return a room waiting for players, with no cards dealt yet
+     */
+    public static Room lobbyRoom(int roomId, int players) {
+        Room room = new Room(roomId * 10, roomId, "host" + roomId);
+        for (int player = 1; player < players; player++) {
+            room.addPlayer(roomId * 10 + player, "player" + (roomId * 10 + player));
+        }
+        return room;
+    }
+
+    /**
+     * @return the rooms waiting for players, the way the old server sent them on every change
+     */
+    public static HashMap<Integer, Room> lobby(int rooms) {
+        HashMap<Integer, Room> lobby = new HashMap<>();
+        for (int roomId = 1; roomId <= rooms; roomId++) {
+            lobby.put(roomId, lobbyRoom(roomId, 1 + roomId % 3));
+        }
+        return lobby;
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.kierki;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.random.RandomGenerator;
+
+/**
+ * A computer player filling an empty seat of a room.
+ * <p>
+ *     A bot is a ClientHandler like any other player, but its Connection is this class: instead of going
+ *     over the network, the messages the room sends to the bot just remind it to check whether it's its turn.
+ *     Its moves go through the same validation and game logic as the human players' ones.
+ * </p>
+ * <p>
+ *     A bot chooses its card with determinized Monte Carlo playouts. Every iteration deals the cards the bot
+ *     hasn't seen to the other players at random, and then plays the rest of the round at random once for
+ *     every card the bot may play. The card which cost the bot the fewest points on average is played.
+ *     The search stops after kierki.botIterations deals, or kierki.botThinkMillis milliseconds, whichever
+ *     comes first.
+ * </p>
+ * <p>
+ *     The searches run on a pool of kierki.botThreads threads with a bounded queue, never on the room's worker,
+ *     so a thinking bot never holds up the requests of human players. If the pool is saturated, the bot
+ *     plays its lowest allowed card right away.
+ * </p>
+ */
+public class BotPlayer implements Connection {
+    public static final int DEFAULT_ITERATIONS = Integer.getInteger("kierki.botIterations", 1000);
+    public static final long DEFAULT_THINK_MILLIS = Long.getLong("kierki.botThinkMillis", 250);
+    public static final int DEFAULT_THREADS = Integer.getInteger("kierki.botThreads", Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final ExecutorService pool = createPool(DEFAULT_THREADS);
+
+    private final Room room;
+    private final OutboundQueue outbound = new OutboundQueue(1); //never used, the bot reads nothing
+    private final RandomGenerator random;
+    private ClientHandler handler;
+    private boolean thinking = false; //only touched on the room's worker
+    private volatile boolean closed = false;
+
+    /**
+     * The class constructor.
+     * @param room the room the bot sits in.
+     * @param random the generator used by the bot's searches.
+     */
+    public BotPlayer(Room room, RandomGenerator random) {
+        this.room = room;
+        this.random = random;
+    }
+
+    private static ExecutorService createPool(int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "bot-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Called on the room's worker whenever the room sends the bot a message. The bot checks whether it has
+     * to play once the command which sent the message is over, so that it sees the room's final state.
+     * @param message the payload of the message, ignored.
+     * @param policy ignored.
+     */
+    @Override
+    public void send(byte[] message, OverflowPolicy policy) {
+        if (!closed) {
+            handler.inRoom(room.getRoomId(), this::takeTurnIfDue);
+        }
+    }
+
+    /**
+     * Starts thinking about a move if it's the bot's turn. Runs on the room's worker.
+     * @throws IOException in/out communication exception
+     */
+    private void takeTurnIfDue() throws IOException {
+        int seat = room.getSeat(handler.getClientId());
+        if (closed || thinking || room.getGameOver() || room.getCurrentTurn() != handler.getClientId()
+                || seat == -1 || room.getHand(seat) == Hands.EMPTY || room.getCardsOnTable().size() == 4) {
+            return;
+        }
+
+        long legalMoves = Rules.legalMoves(room.getCurrentRound(), room.getHand(seat), room.getLedSuit());
+        if (Hands.size(legalMoves) == 1) {
+            play(Card.fromByte(Long.numberOfTrailingZeros(legalMoves)));
+            return;
+        }
+
+        Position position = new Position(room, seat);
+        thinking = true;
+        try {
+            pool.execute(() -> {
+                Card card = search(position, DEFAULT_ITERATIONS, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DEFAULT_THINK_MILLIS));
+                handler.inRoom(room.getRoomId(), () -> {
+                    thinking = false;
+                    if (!closed && !room.getGameOver()) play(card);
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            thinking = false;
+            play(Strategy.LOWEST.chooseCard(null, legalMoves, random));
+        }
+    }
+
+    /**
+     * Plays the card, and checks the turn again, since a bot which took the trick opens the next one.
+     * Runs on the room's worker.
+     * @throws IOException in/out communication exception
+     */
+    private void play(Card card) throws IOException {
+        handler.playInRoom(room.getRoomId(), card);
+        if (room.getCurrentTurn() == handler.getClientId()) {
+            handler.inRoom(room.getRoomId(), this::takeTurnIfDue);
+        }
+    }
+
+    /**
+     * Finds the card costing the bot the fewest points, with determinized Monte Carlo playouts.
+     * @param position the room's state when the bot started thinking.
+     * @param iterations the maximum amount of random deals of the unseen cards.
+     * @param deadline the System.nanoTime() after which the search stops.
+     * @return the best card found
+     */
+    Card search(Position position, int iterations, long deadline) {
+        long legalMoves = Rules.legalMoves(position.round, position.hands[position.seat], position.ledSuit);
+        int moveCount = Hands.size(legalMoves);
+        Card[] moves = new Card[moveCount];
+        long[] totalPoints = new long[moveCount];
+        long remaining = legalMoves;
+        for (int i = 0; i < moveCount; i++, remaining &= remaining - 1) {
+            moves[i] = Card.fromByte(Long.numberOfTrailingZeros(remaining));
+        }
+
+        Card[] unseen = new Card[Hands.size(position.unseen)];
+        long[] hands = new long[SimulatedGame.PLAYERS];
+        SimulatedGame game = new SimulatedGame(position.scoring, position.hostSeat);
+        for (int iteration = 0; iteration < iterations && System.nanoTime() < deadline; iteration++) {
+            position.determinize(unseen, hands, random);
+            game.setUp(position.round, position.trickNumber, position.leader, hands);
+            for (int i = 0; i < position.table.length; i++) {
+                game.play(position.table[i]);
+            }
+
+            for (int i = 0; i < moveCount; i++) {
+                SimulatedGame playout = new SimulatedGame(game);
+                playout.play(moves[i]);
+                playout.playRound(Strategy.RANDOM, random);
+                totalPoints[i] += playout.getPoints(position.seat);
+            }
+        }
+
+        int best = 0;
+        for (int i = 1; i < moveCount; i++) {
+            if (totalPoints[i] < totalPoints[best]) best = i;
+        }
+        return moves[best];
+    }
+
+    public void setHandler(ClientHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public OutboundQueue getOutboundQueue() {
+        return outbound;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * What the bot knows about the room when it starts thinking, copied on the room's worker,
+     * so that the search never touches the room itself.
+     */
+    static class Position {
+        private final Scoring scoring;
+        private final int round;
+        private final int trickNumber;
+        private final int hostSeat;
+        private final int seat;
+        private final int leader;
+        private final Suit ledSuit;
+        private final Card[] table; //the cards on the table, in the order they were played
+        private final long[] hands = new long[SimulatedGame.PLAYERS]; //only the bot's own hand is known
+        private final int[] cardsLeft = new int[SimulatedGame.PLAYERS];
+        private final long unseen; //the cards held by the other players
+
+        Position(Room room, int seat) {
+            this.scoring = Scoring.STANDARD;
+            this.round = room.getCurrentRound();
+            this.trickNumber = room.getTurnCounter();
+            this.hostSeat = room.getSeat(room.getHostId());
+            this.seat = seat;
+            this.leader = Math.floorMod(seat - room.getCardsOnTable().size(), SimulatedGame.PLAYERS);
+            this.ledSuit = room.getLedSuit();
+            this.table = new Card[room.getCardsOnTable().size()];
+            for (int i = 0; i < table.length; i++) {
+                int playerId = room.getConnectedPlayers().get((leader + i) % SimulatedGame.PLAYERS);
+                table[i] = room.getCardsOnTable().get(playerId);
+            }
+            this.hands[seat] = room.getHand(seat);
+            for (int i = 0; i < SimulatedGame.PLAYERS; i++) {
+                cardsLeft[i] = room.getCardsLeft(i);
+            }
+            this.unseen = Hands.FULL_DECK & ~room.getPlayedCards() & ~room.getHand(seat);
+        }
+
+        /**
+         * Deals the unseen cards to the other players at random, keeping the amount of cards everyone holds.
+         * The cards on the table go back to the hands of the players who played them, so that they can
+         * be played again.
+         * @param unseen an array for the unseen cards, reused between deals.
+         * @param hands the hands of all four seats, filled in by this method.
+         * @param random the generator used for the deal.
+         */
+        void determinize(Card[] unseen, long[] hands, RandomGenerator random) {
+            int count = 0;
+            for (long remaining = this.unseen; remaining != Hands.EMPTY; remaining &= remaining - 1) {
+                unseen[count++] = Card.fromByte(Long.numberOfTrailingZeros(remaining));
+            }
+            Dealer.shuffle(unseen, random);
+
+            int next = 0;
+            for (int i = 0; i < SimulatedGame.PLAYERS; i++) {
+                hands[i] = this.hands[i];
+                if (i == seat) continue;
+                for (int j = 0; j < cardsLeft[i]; j++) {
+                    hands[i] |= Hands.bit(unseen[next++]);
+                }
+            }
+            for (int i = 0; i < table.length; i++) {
+                hands[(leader + i) % SimulatedGame.PLAYERS] |= Hands.bit(table[i]);
+            }
+        }
+    }
+}
@@ -1,42 +1,74 @@
 package com.example.kierki;
 
-import java.io.Serializable;
 import java.util.Comparator;
+import java.util.List;
 
 /**
  * Class representing a playing card.
  * <p>
- *     Each card has a suit (diamond, club, heart or spade),
- *     a value going from 2 to 14 (11 being the jack, 13 th king etc.),
- *     the card's owner's ID, or zero if the card hasn't been dealt yet,
- *     and the inHand parameter, telling us if the card has already been
- *     played or not.
+ *     Each card has a suit (diamond, club, heart or spade) and a value going from 2 to 14
+ *     (11 being the jack, 13 th king etc.). Cards are immutable, and there are exactly 52 of them,
+ *     shared by every room: a card is found by its index (see toByte()), never created.
+ *     Who holds a card, and whether it has been played yet, is kept by the Room.
  * </p>
  */
-public class Card implements Serializable {
+public final class Card {
 
+    public static final int CARDS_IN_DECK = 52;
+    public static final int CARDS_IN_SUIT = 13;
+    private static final Suit[] SUITS = Suit.values();
+    private static final Card[] DECK = new Card[CARDS_IN_DECK];
+    static {
+        for (int i = 0; i < CARDS_IN_DECK; i++) {
+            DECK[i] = new Card(SUITS[i / CARDS_IN_SUIT], i % CARDS_IN_SUIT + 2);
+        }
+    }
+    private static final List<Card> ALL = List.of(DECK);
     private final Suit suit;
     private final int value;
-    private int clientId = 0;
-    private boolean inHand;
 
     /**
-     * Card class constructor.
+     * Card class constructor, only used to create the 52 canonical cards.
      * @param suit the card's suit (diamond, club, heart or spade)
      * @param value the card's value (2-14)
      */
-    public Card (Suit suit, int value) {
+    private Card (Suit suit, int value) {
         this.suit = suit;
         this.value = value;
-        this.inHand = true;
     }
 
     /**
-     * Resets the card so that it can be dealt again.
+     * Finds a card from its single byte representation, used by the network protocol.
+     * @param index the card's index, from 0 to 51, see toByte().
+     * @return the card
+     * @throws ArrayIndexOutOfBoundsException if the index is not a card's index
+     */
+    public static Card fromByte(int index) {
+        return DECK[index];
+    }
+
+    /**
+     * @param suit the card's suit.
+     * @param value the card's value (2-14).
+     * @return the card
      */
-    public void resetCard() {
-        this.inHand = true;
-        this.clientId = 0;
+    public static Card of(Suit suit, int value) {
+        return DECK[suit.ordinal() * CARDS_IN_SUIT + (value - 2)];
+    }
+
+    /**
+     * @return all 52 cards, ordered by index
+     */
+    public static List<Card> deck() {
+        return ALL;
+    }
+
+    /**
+     * Encodes the card's suit and value into a single byte, used by the network protocol.
+     * @return the card's index, from 0 to 51: thirteen consecutive values for each suit.
+     */
+    public int toByte() {
+        return suit.ordinal() * CARDS_IN_SUIT + (value - 2);
     }
 
     /**
@@ -59,21 +91,4 @@ public class Card implements Serializable {
     public Suit getSuit() {
         return suit;
     }
-    public int getClientId() {
-        return clientId;
-    }
-
-    /**
-     * Getter for the boolean parameter inHand.
-     * @return false if it has been played already, true otherwise.
-     */
-    public boolean isInHand() {
-        return inHand;
-    }
-    public void setClientId(int clientId) {
-        this.clientId = clientId;
-    }
-    public void setInHand(boolean inHand) {
-        this.inHand = inHand;
-    }
 }
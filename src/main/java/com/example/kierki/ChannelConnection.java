@@ -0,0 +1,134 @@
+package com.example.kierki;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Connection used by the NioServer, where a single event loop thread serves many non-blocking channels.
+ * <p>
+ *     Sending a message never blocks: the message is queued, and the event loop writes it out once the
+ *     channel is writable, together with everything else queued in the meantime. Incoming bytes are gathered
+ *     in a buffer until a whole frame has arrived, and then handed over to the ClientHandler.
+ * </p>
+ */
+public class ChannelConnection implements Connection {
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final OutboundQueue outbound = new OutboundQueue();
+    private final List<byte[]> batch = new ArrayList<>();
+    private ByteBuffer pending = null; //frames taken from the queue, but not yet fully written
+    private ByteBuffer inbound = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private ClientHandler handler;
+
+    /**
+     * The class constructor.
+     * @param channel the channel accepted by the server.
+     * @param key the channel's registration with its event loop's selector.
+     */
+    public ChannelConnection(SocketChannel channel, SelectionKey key) {
+        this.channel = channel;
+        this.key = key;
+    }
+
+    /**
+     * Queues the message, and asks the event loop to write it out as soon as possible.
+     * Safe to call from any thread.
+     * @param message the payload of the message, built with a MessageWriter.
+     * @param policy what to do if too many messages are already waiting for the client.
+     * @throws IOException if the channel is closed, or the queue overflowed with the DISCONNECT policy
+     */
+    @Override
+    public void send(byte[] message, OverflowPolicy policy) throws IOException {
+        if (!key.isValid()) {
+            throw new IOException("Connection closed");
+        }
+        if (outbound.offer(message, policy)) {
+            key.interestOpsOr(SelectionKey.OP_WRITE);
+            key.selector().wakeup();
+        }
+    }
+
+    /**
+     * Called by the event loop when the channel is readable. Reads everything available, and passes
+     * every complete frame to the ClientHandler.
+     * @throws Exception if the channel has been closed, or the ClientHandler failed to handle a message
+     */
+    public void read() throws Exception {
+        if (channel.read(inbound) == -1) {
+            throw new IOException("Client disconnected");
+        }
+
+        inbound.flip();
+        while (inbound.remaining() >= Message.HEADER_SIZE) {
+            int length = inbound.getInt(inbound.position());
+            Message.checkLength(length);
+            if (inbound.remaining() < Message.HEADER_SIZE + length) {
+                break;
+            }
+
+            byte[] payload = new byte[length];
+            inbound.position(inbound.position() + Message.HEADER_SIZE);
+            inbound.get(payload);
+            handler.handleMessage(payload);
+        }
+        inbound.compact();
+
+        if (!inbound.hasRemaining()) { //a single frame is larger than the buffer
+            ByteBuffer larger = ByteBuffer.allocate(inbound.capacity() * 2);
+            inbound.flip();
+            larger.put(inbound);
+            inbound = larger;
+        }
+    }
+
+    /**
+     * Called by the event loop when the channel is writable. Takes all the queued messages at once, and
+     * writes as much of them as the socket accepts, then stops listening for writability once the queue is empty.
+     * @throws IOException in/out communication exception
+     */
+    public void write() throws IOException {
+        while (pending != null || outbound.drainTo(batch) > 0) {
+            if (pending == null) {
+                pending = ByteBuffer.wrap(Message.frame(batch));
+                batch.clear();
+            }
+            ServerMetrics.INSTANCE.bytesOut(channel.write(pending));
+            if (pending.hasRemaining()) {
+                return;
+            }
+            pending = null;
+        }
+
+        key.interestOpsAnd(~SelectionKey.OP_WRITE);
+        if (!outbound.isEmpty()) { //a message was queued while we were clearing the flag
+            key.interestOpsOr(SelectionKey.OP_WRITE);
+        }
+    }
+
+    @Override
+    public void close() {
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Log.error("Couldn't close the channel", e);
+        }
+    }
+
+    @Override
+    public OutboundQueue getOutboundQueue() {
+        return outbound;
+    }
+
+    public ClientHandler getHandler() {
+        return handler;
+    }
+    public void setHandler(ClientHandler handler) {
+        this.handler = handler;
+    }
+}
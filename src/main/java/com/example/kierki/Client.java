@@ -25,16 +25,24 @@ import java.util.Map;
  *     The GUI's elements like loaders and scenes are only created once. Their contents are cleared
  *     and generated anew whenever that is necessary.
  * </p>
+ * <p>
+ *     During a game the server only sends the changes made to the room, each with a sequence number.
+ *     The client applies them to its own copy of the room, and if it ever notices a missing change,
+ *     it ignores further changes and asks the server for a full snapshot of the room instead.
+ * </p>
  */
 public class Client {
     private Socket clientSocket = null;
     private int clientId;
     private String username = null;
     private int currentRoomId = 0;
-    private final List<Card> cardsInHand = new ArrayList<>();
-    private HashMap<Integer, Room> rooms;
-    private ObjectOutputStream out = null;
-    private ObjectInputStream in = null;
+    private boolean awaitingSnapshot = false;
+    private final List<Card> cardsInHand = new ArrayList<>(); //every card dealt this round, in the order they're shown
+    private volatile long hand = Hands.EMPTY; //bitboard of the cards not played yet
+    private final HashMap<Integer, Room> rooms = new HashMap<>(); //the rooms this client received in full
+    private LobbyQuery lobbyQuery = LobbyQuery.firstPage();
+    private OutputStream out = null;
+    private DataInputStream in = null;
 
     private Stage primaryStage;
     private UsernameController usernameController;
@@ -70,8 +78,8 @@ public class Client {
             this.waitingScene = new Scene(waitingLoader.getRoot());
             this.gameScene = new Scene(gameLoader.getRoot());
 
-            this.out = new ObjectOutputStream(clientSocket.getOutputStream());
-            this.in = new ObjectInputStream(clientSocket.getInputStream());
+            this.out = clientSocket.getOutputStream();
+            this.in = new DataInputStream(clientSocket.getInputStream());
         } catch (IOException e) {
             closeEverything();
         }
@@ -81,23 +89,17 @@ public class Client {
      * The first method used by the client after establishing connection with the server.
      * Used to get a unique ID, given by the server application.
      * @throws IOException in/out communication exception
-     * @throws ClassNotFoundException if the class can't be identified after deserialization
      */
-    public void receiveID() throws IOException, ClassNotFoundException {
-        clientId = (int) in.readObject();
+    public void receiveID() throws IOException {
+        clientId = new MessageReader(Message.readFrame(in)).readInt();
     }
 
     /**
-     * Method used by the client after logging in, responsible for receiving the currently open rooms.
+     * Asks the server for the next page of open rooms, after the ones already shown in the lobby.
      * @throws IOException in/out communication exception
-     * @throws ClassNotFoundException if the class can't be identified after deserialization
      */
-    public void receiveRooms() throws IOException, ClassNotFoundException {
-        rooms = (HashMap<Integer, Room>) in.readObject();
-
-        for (Map.Entry<Integer, Room> entry : rooms.entrySet()) {
-            roomsController.addRoom(entry.getValue());
-        }
+    public void requestMoreRooms() throws IOException {
+        send(new MessageWriter().writeRequest(Request.QUERY_LOBBY).writeLobbyQuery(lobbyQuery).toByteArray());
     }
 
     /**
@@ -106,10 +108,7 @@ public class Client {
      * @throws IOException in/out communication exception
      */
     public void requestUsername(String username) throws IOException {
-        out.reset();
-        out.writeObject(Request.REQUEST_USERNAME);
-        out.writeObject(username);
-        out.flush();
+        send(new MessageWriter().writeRequest(Request.REQUEST_USERNAME).writeString(username).toByteArray());
     }
 
     /**
@@ -117,9 +116,7 @@ public class Client {
      * @throws IOException in/out communication exception
      */
     public void requestRoomAdd() throws IOException {
-        out.reset();
-        out.writeObject(Request.CREATE_ROOM);
-        out.flush();
+        send(new MessageWriter().writeRequest(Request.CREATE_ROOM).toByteArray());
     }
 
     /**
@@ -136,63 +133,84 @@ public class Client {
      * @throws IOException in/out communication exception
      */
     public void joinExistingRoom(int roomId) throws IOException {
-        out.reset();
-        out.writeObject(Request.JOIN_ROOM);
-        out.writeInt(roomId);
-        out.flush();
+        send(new MessageWriter().writeRequest(Request.JOIN_ROOM).writeInt(roomId).toByteArray());
     }
 
     /**
-     * Starts the game; asks the server for cards and updates the GUI.
+     * Starts the game and updates the GUI. The server deals the cards on its own, as soon as the room is full.
      * @throws IOException in/out communication exception
      */
     public void startGame() throws IOException {
-        out.reset();
-        out.writeObject(Request.DEAL_CARDS);
-        out.writeObject(currentRoomId);
-
         gameController.setLabels(rooms.get(currentRoomId).getConnectedPlayers(), rooms.get(currentRoomId).getConnectedPlayersNames());
 
         primaryStage.setScene(gameScene);
     }
 
     /**
-     * Asks the server to play a card, but only if it's this client's turn to do so.
+     * Asks the server to play a card, but only if it's this client's turn, and the Rules allow the card.
      * This method is called when a javaFX ImageView representing a card is clicked.
      * @param cardIndex the index of the card the user wants to play (0 - 12).
      * @throws IOException in/out communication exception
      */
     public void playCard(int cardIndex) throws IOException {
-        if (rooms.get(currentRoomId).getCurrentTurn() == this.clientId)
-        {
-            out.reset();
-            out.writeObject(Request.PLAY_CARD);
-            out.writeObject(cardsInHand.get(cardIndex));
-            out.writeObject(currentRoomId);
-            out.flush();
+        if (!Hands.contains(getLegalMoves(), cardsInHand.get(cardIndex))) {
+            System.out.println("Can't play card: " + cardsInHand.get(cardIndex).getValue() + " " + cardsInHand.get(cardIndex).getSuit());
+        }
+        else {
+            send(new MessageWriter()
+                    .writeRequest(Request.PLAY_CARD)
+                    .writeCard(cardsInHand.get(cardIndex))
+                    .toByteArray());
             System.out.println("Sent request to play card: " + cardsInHand.get(cardIndex).getValue() + " " + cardsInHand.get(cardIndex).getSuit());
         }
     }
 
+    /**
+     * Finds the cards this client is allowed to play right now, following the same Rules the server checks.
+     * @return the cards, as a bitboard, empty if it isn't this client's turn
+     */
+    public long getLegalMoves() {
+        Room room = rooms.get(currentRoomId);
+        if (room == null || awaitingSnapshot || room.getCurrentTurn() != this.clientId) return Hands.EMPTY;
+
+        return Rules.legalMoves(room.getCurrentRound(), hand, room.getLedSuit());
+    }
+
     /**
      * Asks the server to invite a player. Only the host can invite players.
      * @param username the username of the player the host wants to invite.
      * @throws IOException IOException in/out communication exception
      */
     public void requestPlayerInvite(String username) throws IOException {
-        out.writeObject(Request.INVITE_PLAYER);
-        out.writeObject(username);
-        out.flush();
+        send(new MessageWriter().writeRequest(Request.INVITE_PLAYER).writeString(username).toByteArray());
 
         System.out.println("Invited: " + username);
     }
 
+    /**
+     * Asks the server to seat a computer player in the room. Only the host can add bots.
+     * @throws IOException IOException in/out communication exception
+     */
+    public void requestAddBot() throws IOException {
+        send(new MessageWriter().writeRequest(Request.ADD_BOT).toByteArray());
+    }
+
     /**
      * Notifies the server the user has exited the application.
      * @throws IOException OException in/out communication exception
      */
     public void exitGame() throws IOException {
-        out.writeObject(Request.EXIT_GAME);
+        send(new MessageWriter().writeRequest(Request.EXIT_GAME).toByteArray());
+    }
+
+    /**
+     * Sends a single message to the server. Synchronized, because both the JavaFX thread and
+     * the listening thread send messages.
+     * @param message the payload of the message, built with a MessageWriter.
+     * @throws IOException in/out communication exception
+     */
+    private synchronized void send(byte[] message) throws IOException {
+        Message.writeFrame(out, message);
     }
 
 
@@ -206,40 +224,53 @@ public class Client {
             while (clientSocket.isConnected())
             {
                 try {
-                    Response response = (Response) in.readObject();
+                    MessageReader message = new MessageReader(Message.readFrame(in));
+                    Response response = message.readResponse();
 
                     if (response == Response.SET_USERNAME) {
-                        handleSetUsername();
+                        handleSetUsername(message);
                     }
                     if (response == Response.ROOMS_UPDATE) {
-                        handleRoomsUpdate();
+                        handleRoomsUpdate(message);
                     }
                     else if (response == Response.ROOM_CREATED) {
-                        handleRoomCreated();
+                        handleRoomCreated(message);
                     }
                     else if (response == Response.INVITATION) {
-                        handleInvitation();
+                        handleInvitation(message);
                     }
                     else if (response == Response.JOINED_ROOM) {
-                        handleJoinedRoom();
+                        handleJoinedRoom(message);
                     }
                     else if (response == Response.DEALT_CARDS) {
-                        handleDealtCards();
+                        handleDealtCards(message);
                     }
                     else if (response == Response.PLAYED_CARD) {
-                        handlePlayedCard();
+                        handlePlayedCard(message);
                     }
                     else if (response == Response.CARDS_UPDATE) {
-                        handleCardsUpdate();
+                        handleCardsUpdate(message);
                     }
                     else if (response == Response.TURN_OVER) {
-                        handleTurnOver();
+                        handleTurnOver(message);
                     }
                     else if (response == Response.ROUND_OVER) {
-                        handleRoundOver();
+                        handleRoundOver(message);
                     }
                     else if (response == Response.GAME_OVER) {
-                        handleGameOver();
+                        handleGameOver(message);
+                    }
+                    else if (response == Response.ROOM_SNAPSHOT) {
+                        handleRoomSnapshot(message);
+                    }
+                    else if (response == Response.LOBBY_PAGE) {
+                        handleLobbyPage(message);
+                    }
+                    else if (response == Response.LOBBY_UPDATE) {
+                        handleLobbyUpdate(message);
+                    }
+                    else if (response == Response.ROOM_CLOSED) {
+                        handleRoomClosed(message);
                     }
 
                 } catch (Exception e) {
@@ -251,20 +282,15 @@ public class Client {
 
     /**
      * Handles setting the client's username. If the username is unique, and thus allowed,
-     * the client receives a HashMap containing currently open rooms, and updates the GUI.
+     * the client moves on to the lobby, where the first page of open rooms arrives right after.
+     * @param message the rest of the received message.
      * @throws IOException in/out communication exception
-     * @throws ClassNotFoundException if the class can't be identified after deserialization
      */
-    private void handleSetUsername() throws IOException, ClassNotFoundException {
-        boolean usernameSet = (boolean) in.readObject();
+    private void handleSetUsername(MessageReader message) throws IOException {
+        boolean usernameSet = message.readBoolean();
 
         if (usernameSet) {
-            this.username = (String) in.readObject();
-            receiveRooms();
-            System.out.println("Available rooms:");
-            for (Map.Entry<Integer, Room> entry : rooms.entrySet()) {
-                System.out.println("Id: " + entry.getValue().getRoomId() + " players: " + entry.getValue().getPlayerAmount() + "/4\n");
-            }
+            this.username = message.readString();
 
             Platform.runLater(() -> {
                 primaryStage.setScene(roomsScene);
@@ -276,23 +302,60 @@ public class Client {
     }
 
     /**
-     * Handles an update to the HashMap containing rooms. Updates the list of rooms in the GUI.
+     * Handles receiving a page of open rooms. Adds a button for every room, and lets the player
+     * ask for the next page, if there is one.
+     * @param message the rest of the received message.
      * @throws IOException in/out communication exception
-     * @throws ClassNotFoundException if the class can't be identified after deserialization
      */
-    private void handleRoomsUpdate() throws IOException, ClassNotFoundException {
-        Room room = (Room) in.readObject();
-        int roomId = room.getRoomId();
+    private void handleLobbyPage(MessageReader message) throws IOException {
+        int count = message.readUnsignedByte();
+        System.out.println("Available rooms:");
+        RoomSummary summary = null;
+        for (int i = 0; i < count; i++) {
+            summary = message.readRoomSummary();
+            System.out.println("Id: " + summary.getRoomId() + " host: " + summary.getHostName() + " players: " + summary.getPlayerAmount() + "/4");
+            roomsController.addRoom(summary);
+        }
+        boolean hasMore = message.readBoolean();
+
+        if (summary != null) lobbyQuery = lobbyQuery.after(summary);
+        roomsController.showMoreRoomsButton(hasMore);
+    }
 
-        if (rooms.get(roomId) == null){
-            roomsController.addRoom(room);
+    /**
+     * Handles a batch of changes to the list of open rooms, published by the server on every lobby tick.
+     * The whole batch is applied to the GUI at once.
+     * @param message the rest of the received message.
+     * @throws IOException in/out communication exception
+     */
+    private void handleLobbyUpdate(MessageReader message) throws IOException {
+        int changedCount = message.readInt();
+        List<RoomSummary> changed = new ArrayList<>(changedCount);
+        for (int i = 0; i < changedCount; i++) {
+            changed.add(message.readRoomSummary());
+        }
+        int removedCount = message.readInt();
+        List<Integer> removed = new ArrayList<>(removedCount);
+        for (int i = 0; i < removedCount; i++) {
+            removed.add(message.readInt());
         }
 
+        roomsController.applyLobbyUpdate(changed, removed);
+    }
+
+    /**
+     * Handles an update to the room this client is waiting in, sent whenever another player joins it.
+     * Updates the waiting room in the GUI, and starts the game once the room is full.
+     * @param message the rest of the received message.
+     * @throws IOException in/out communication exception
+     */
+    private void handleRoomsUpdate(MessageReader message) throws IOException {
+        Room room = message.readRoom();
+        int roomId = room.getRoomId();
+
         System.out.println("Room size: " + room.getPlayerAmount());
 
         Platform.runLater(() -> {
-            roomsController.updateRoomButton(room.getRoomId(), room.getPlayerAmount());
-
             if (currentRoomId == room.getRoomId())
             {
                 waitingController.getConnectedPlayersVBox().getChildren().clear();
@@ -317,11 +380,11 @@ public class Client {
 
     /**
      * Handles a situation where a new room has been created by this client.
+     * @param message the rest of the received message.
      * @throws IOException in/out communication exception
-     * @throws ClassNotFoundException if the class can't be identified after deserialization
      */
-    private void handleRoomCreated() throws IOException, ClassNotFoundException {
-        Room room = (Room) in.readObject();
+    private void handleRoomCreated(MessageReader message) throws IOException {
+        Room room = message.readRoom();
 
         Platform.runLater(() -> waitingController.addPlayerLabel(username));
 
@@ -333,11 +396,11 @@ public class Client {
      * Handles receiving an invitation from another client. Creates a popup window on the
      * client's screen, asking them to accept the invite. Updates the GUI to show the main game scene,
      * if the client accepted the invitation.
+     * @param message the rest of the received message.
      * @throws IOException in/out communication exception
-     * @throws ClassNotFoundException if the class can't be identified after deserialization
      */
-    private void handleInvitation() throws IOException, ClassNotFoundException {
-        Invitation invitation = (Invitation) in.readObject();
+    private void handleInvitation(MessageReader message) throws IOException {
+        Invitation invitation = message.readInvitation();
         System.out.println("Received invitation");
 
         Platform.runLater(() -> {
@@ -366,11 +429,11 @@ public class Client {
 
     /**
      * Handles joining another player's room. Updates the GUI accordingly.
+     * @param message the rest of the received message.
      * @throws IOException in/out communication exception
-     * @throws ClassNotFoundException if the class can't be identified after deserialization
      */
-    private void handleJoinedRoom() throws IOException, ClassNotFoundException {
-        Room room = (Room) in.readObject();
+    private void handleJoinedRoom(MessageReader message) throws IOException {
+        Room room = message.readRoom();
         currentRoomId = room.getRoomId();
 
         rooms.put(room.getRoomId(), room);
@@ -400,17 +463,21 @@ public class Client {
     /**
      * Handles receiving cards from the server at the start of every round.
      * Updates the GUI accordingly.
+     * @param message the rest of the received message.
      * @throws IOException in/out communication exception
-     * @throws ClassNotFoundException if the class can't be identified after deserialization
      */
-    private void handleDealtCards() throws IOException, ClassNotFoundException {
+    private void handleDealtCards(MessageReader message) throws IOException {
         cardsInHand.clear();
 
-        for (int i = 0; i < 13; i++)
+        long dealtHand = Hands.EMPTY;
+        int cardCount = message.readUnsignedByte();
+        for (int i = 0; i < cardCount; i++)
         {
-            Card card = (Card) in.readObject();
+            Card card = message.readCard();
             cardsInHand.add(card);
+            dealtHand |= Hands.bit(card);
         }
+        hand = dealtHand;
 
         cardsInHand.sort(new Card.CardComparator());
 
@@ -425,38 +492,45 @@ public class Client {
     /**
      * Handles a situation when this client was allowed to play a card they chose,
      * using the playCard() method.
+     * @param message the rest of the received message.
      * @throws IOException in/out communication exception
-     * @throws ClassNotFoundException if the class can't be identified after deserialization
      */
-    private void handlePlayedCard() throws IOException, ClassNotFoundException {
-        Card playedCard = (Card) in.readObject();
-        Room room = (Room) in.readObject();
-        rooms.put(room.getRoomId(), room); //updates the turn
+    private void handlePlayedCard(MessageReader message) throws IOException {
+        int sequence = message.readInt();
+        message.readUnsignedByte(); //this client's own seat
+        Card playedCard = message.readCard();
+        int turnSeat = message.readUnsignedByte();
+        Room room = rooms.get(currentRoomId);
+        hand &= ~Hands.bit(playedCard);
+        boolean applied = applyPlayedCard(room, sequence, clientId, playedCard, turnSeat);
         System.out.println("Client succesfully played card: " + playedCard.getValue() + " " + playedCard.getSuit());
 
-        int cardIndex = findCard(playedCard);
-        cardsInHand.set(cardIndex, playedCard);
+        int cardIndex = cardsInHand.indexOf(playedCard);
 
         Platform.runLater(() -> {
             gameController.playCard(cardIndex);
-            gameController.highlightPlayer(room.getCurrentTurn());
+            if (applied) gameController.highlightPlayer(room.getCurrentTurn());
         });
     }
 
     /**
      * Handles an update to the cards on the table. The client receives a card another client played,
      * and updates the GUI accordingly.
+     * @param message the rest of the received message.
      * @throws IOException in/out communication exception
-     * @throws ClassNotFoundException if the class can't be identified after deserialization
      */
-    private void handleCardsUpdate() throws IOException, ClassNotFoundException {
-        Card playedCard = (Card) in.readObject();
-        Room room = (Room) in.readObject();
-        rooms.put(room.getRoomId(), room);
-        System.out.println("Player: " + playedCard.getClientId() + " played: " + playedCard.getValue() + " " + playedCard.getSuit());
+    private void handleCardsUpdate(MessageReader message) throws IOException {
+        int sequence = message.readInt();
+        Room room = rooms.get(currentRoomId);
+        int playerSeat = message.readUnsignedByte();
+        int playerId = room.getConnectedPlayers().get(playerSeat);
+        Card playedCard = message.readCard();
+        int turnSeat = message.readUnsignedByte();
+        if (!applyPlayedCard(room, sequence, playerId, playedCard, turnSeat)) return;
+        System.out.println("Player: " + playerId + " played: " + playedCard.getValue() + " " + playedCard.getSuit());
 
         Platform.runLater(() -> {
-            gameController.placeOtherPlayersCard(playedCard,  playedCard.getClientId());
+            gameController.placeOtherPlayersCard(playedCard, playerId);
             gameController.highlightPlayer(room.getCurrentTurn());
         });
     }
@@ -464,36 +538,48 @@ public class Client {
     /**
      * Handles the end of the turn, that is, all four players having played a card, and one of them
      * having received points. Updates the GUI accordingly.
+     * @param message the rest of the received message.
      * @throws IOException in/out communication exception
-     * @throws ClassNotFoundException if the class can't be identified after deserialization
      */
-    private void handleTurnOver() throws IOException, ClassNotFoundException {
-        int takerClientId = (int) in.readObject();
-        int receivedPoints = (int) in.readObject();
-        Room room = (Room) in.readObject();
-        rooms.put(room.getRoomId(), room);
+    private void handleTurnOver(MessageReader message) throws IOException {
+        int sequence = message.readInt();
+        Room room = rooms.get(currentRoomId);
+        int takerClientId = room.getConnectedPlayers().get(message.readUnsignedByte());
+        int receivedPoints = message.readInt();
+        if (!acceptDelta(room, sequence)) return;
+
+        room.clearTable();
+        room.setCurrentTurn(takerClientId);
+        room.givePoints(takerClientId, receivedPoints);
+        room.incrementTurnCounter();
+        int totalPoints = room.getPlayerPoints().get(takerClientId);
         System.out.println("Player: " + takerClientId + " received: " + receivedPoints + " points");
 
         Platform.runLater(() ->{
             gameController.clearTable();
-            gameController.updatePoints(takerClientId, room.getPlayerPoints().get(takerClientId));
+            gameController.updatePoints(takerClientId, totalPoints);
             gameController.highlightPlayer(room.getCurrentTurn());
         });
     }
 
     /**
      * Handles ending a round. This means all cards have been played,
-     * and it's time to move on to the next round. Asks the server to deal cards again.
+     * and it's time to move on to the next round. The server deals the next round's cards right after.
      * Updates the GUI  accordingly.
+     * @param message the rest of the received message.
      * @throws IOException in/out communication exception
-     * @throws ClassNotFoundException if the class can't be identified after deserialization
      */
-    private void handleRoundOver() throws IOException, ClassNotFoundException {
-        Room room = (Room) in.readObject();
-        rooms.put(room.getRoomId(), room);
-
-        out.writeObject(Request.DEAL_CARDS);
-        out.writeObject(currentRoomId);
+    private void handleRoundOver(MessageReader message) throws IOException {
+        int sequence = message.readInt();
+        Room room = rooms.get(currentRoomId);
+        int round = message.readUnsignedByte();
+        int turnSeat = message.readUnsignedByte();
+
+        if (acceptDelta(room, sequence)) {
+            room.setCurrentRound(round);
+            room.setCurrentTurn(room.getConnectedPlayers().get(turnSeat));
+            room.resetTurnCounter();
+        }
 
         Platform.runLater(() -> {
             gameController.updateRound(room.getCurrentRound());
@@ -504,36 +590,108 @@ public class Client {
     /**
      * Handles the game ending. The client receives the winner's name, and displays a popup with it inside.
      * Also removes the room in which the game was taking place from this client's local HashMap of rooms.
+     * @param message the rest of the received message.
      * @throws IOException in/out communication exception
-     * @throws ClassNotFoundException if the class can't be identified after deserialization
      */
-    private void handleGameOver() throws IOException, ClassNotFoundException {
-        String winnerName = (String) in.readObject();
-        Room room = (Room) in.readObject();
+    private void handleGameOver(MessageReader message) throws IOException {
+        message.readInt(); //the room is removed anyway, so there is nothing left to keep in sync
+        int roomId = message.readInt();
+        String winnerName = message.readString();
 
-        rooms.remove(room.getRoomId());
+        rooms.remove(roomId);
+        awaitingSnapshot = false;
 
         Platform.runLater(() -> {
             gameController.showWinner(winnerName);
             waitingController.clearLabels();
-            roomsController.removeRoomButton(room.getRoomId());
+            roomsController.removeRoomButton(roomId);
         });
     }
 
     /**
-     * Function to find the given card in the player's hand, after its properties have been
-     * changed by the server.
-     * @param updatedCard the card it looks for
+     * Handles the room the client was waiting in being closed, because its host left.
+     * Takes the client back to the list of rooms.
+     * @param message the rest of the received message.
+     * @throws IOException in/out communication exception
      */
-    public int findCard(Card updatedCard) {
-        int index = 0;
-        for (Card card : this.cardsInHand) {
-            if (card.getSuit() == updatedCard.getSuit() && card.getValue() == updatedCard.getValue()) {
-                break;
+    private void handleRoomClosed(MessageReader message) throws IOException {
+        int roomId = message.readInt();
+        rooms.remove(roomId);
+
+        Platform.runLater(() -> {
+            roomsController.removeRoomButton(roomId);
+            if (currentRoomId == roomId) {
+                waitingController.clearLabels();
+                primaryStage.setScene(roomsScene);
             }
-            index++;
+        });
+    }
+
+    /**
+     * Handles receiving a full snapshot of the current room, requested after a missed update.
+     * Replaces the local copy of the room and redraws the table, scores and round.
+     * @param message the rest of the received message.
+     * @throws IOException in/out communication exception
+     */
+    private void handleRoomSnapshot(MessageReader message) throws IOException {
+        Room room = message.readRoom();
+        if (room.getRoomId() != currentRoomId) return;
+
+        rooms.put(room.getRoomId(), room);
+        awaitingSnapshot = false;
+        System.out.println("Resynchronized room: " + room.getRoomId() + " at update: " + room.getSequence());
+
+        Platform.runLater(() -> {
+            gameController.clearTable();
+            for (Map.Entry<Integer, Card> entry : room.getCardsOnTable().entrySet()) {
+                if (entry.getKey() != clientId) gameController.placeOtherPlayersCard(entry.getValue(), entry.getKey());
+            }
+            for (Map.Entry<Integer, Integer> entry : room.getPlayerPoints().entrySet()) {
+                gameController.updatePoints(entry.getKey(), entry.getValue());
+            }
+            gameController.updateRound(room.getCurrentRound());
+            gameController.highlightPlayer(room.getCurrentTurn());
+        });
+    }
+
+    /**
+     * Applies a card played by any player, this client included, to the local copy of the room.
+     * @param room the current room.
+     * @param sequence the update's sequence number.
+     * @param playerId the ID of the player who played the card.
+     * @param playedCard the played card.
+     * @param turnSeat the seat of the player whose turn it is now.
+     * @return true if the update was applied, false if the client is waiting for a snapshot
+     * @throws IOException in/out communication exception
+     */
+    private boolean applyPlayedCard(Room room, int sequence, int playerId, Card playedCard, int turnSeat) throws IOException {
+        if (!acceptDelta(room, sequence)) return false;
+
+        room.putOnTable(playerId, playedCard);
+        room.setCurrentTurn(room.getConnectedPlayers().get(turnSeat));
+        return true;
+    }
+
+    /**
+     * Checks whether an update follows directly after the last one applied to the room.
+     * If it doesn't, asks the server for a full snapshot of the room, and rejects all updates until it arrives.
+     * @param room the current room.
+     * @param sequence the update's sequence number.
+     * @return true if the update can be applied
+     * @throws IOException in/out communication exception
+     */
+    private boolean acceptDelta(Room room, int sequence) throws IOException {
+        if (awaitingSnapshot) return false;
+
+        if (sequence != room.getSequence() + 1) {
+            System.out.println("Missed an update of room: " + room.getRoomId() + ", requesting a snapshot");
+            awaitingSnapshot = true;
+            send(new MessageWriter().writeRequest(Request.SYNC_ROOM).toByteArray());
+            return false;
         }
-        return index;
+
+        room.setSequence(sequence);
+        return true;
     }
 
     /**
@@ -541,8 +699,7 @@ public class Client {
      * @throws IOException in/out communication exception
      */
     public void disconnectClient() throws IOException {
-        out.writeObject(Request.DISCONNECT);
-        out.writeObject(currentRoomId);
+        send(new MessageWriter().writeRequest(Request.DISCONNECT).toByteArray());
     }
 
     /**
@@ -3,152 +3,276 @@ package com.example.kierki;
 import java.io.*;
 import java.net.Socket;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The ClientHandler class is responsible for all client-server communication.
  * Each time the server encounters a new client, it creates a new instance of
  * ClientHandler, which then establishes a connection with the client.
  * <p>
- *     The class holds a static list of all its other instances, so that it can broadcast information to all
- *     other clients, as well as a static HashMap of all he open rooms, where the room's ID is the key,
- *     and the room itself is the value. The Room object is where most game related information is stored,
+ *     The class holds a static map of all he open rooms, where the room's ID is the key,
+ *     and the room itself is the value, along with indexes finding the room of any player, and of any host.
+ *     Requests about a game always concern the room the server knows the client is in, so clients never
+ *     name the room they play in. The Room object is where most game related information is stored,
  *     but the ClientHandler class additionally knows whether the client is logged in, and currently
  *     in game or not.
  * </p>
  * <p>
- *     The property usernames is used to store client's usernames. The keys are clientIDs,
- *     and the values are the usernames.
+ *     The logged in clients are kept in a static UserRegistry, which finds a client's ClientHandler by either
+ *     their username or their ID, and makes sure no two clients ever get the same username.
  * </p>
  * <p>
  *     Each client's ID is given to them by the Server application.
  * </p>
+ * <p>
+ *     Messages reach the client through a Connection, so the same handler works with both the blocking
+ *     Server, where run() reads the client's messages on a dedicated thread, and the NioServer, where an
+ *     event loop decodes the messages and passes them to handleMessage().
+ * </p>
+ * <p>
+ *     Broadcasts never look through all the connected clients. Game updates go to the ClientHandlers
+ *     subscribed to the room, and room list changes are handed to the LobbyPublisher, which sends them
+ *     in batches to the lobby, that is the clients who are logged in.
+ *     A broadcast message is encoded once, and the same array is queued for every recipient, so it must
+ *     never be modified after toByteArray().
+ * </p>
+ * <p>
+ *     Every room is owned by one of the RoomExecutor's worker threads, chosen by the room's ID. Whatever reads
+ *     or changes a room runs on its worker, in the order the requests arrived, so the game logic needs no
+ *     locks, and rooms on different workers are played in parallel. The thread reading the client's messages,
+ *     be it the client's own thread or an event loop, only decodes the request and hands it to the worker.
+ *     The maps shared by all the handlers are concurrent.
+ * </p>
  */
 public class ClientHandler implements Runnable {
-    private static final List<ClientHandler> clientHandlers = new ArrayList<>();
-    private static final HashMap<Integer, Room> rooms = new HashMap<>();
-    private static int serverRoomId = 1;
+    private static final UserRegistry users = new UserRegistry();
+    private static final LobbyPublisher lobby = new LobbyPublisher();
+    private static final RoomExecutor roomExecutor = new RoomExecutor();
+    private static final Map<Integer, Room> rooms = new ConcurrentHashMap<>();
+    private static final Map<Integer, Room> roomsByPlayer = new ConcurrentHashMap<>(); //key - clientId of any player in the room
+    private static final Map<Integer, Room> roomsByHost = new ConcurrentHashMap<>(); //key - clientId of the room's host
+    private static final AtomicInteger serverRoomId = new AtomicInteger(1);
+    private static final Scoring scoring = Scoring.STANDARD;
+    private static final Dealer dealer = new Dealer();
+    private static final ServerMetrics metrics = ServerMetrics.INSTANCE;
+    private static final AtomicInteger botIds = new AtomicInteger(-1); //bots count down, so they never clash with clients
     private Socket socket;
-    private ObjectOutputStream out = null;
-    private ObjectInputStream in = null;
+    private final Connection connection;
+    private DataInputStream in = null;
     private int clientId; //given by the server
-    private static final HashMap<Integer, String> usernames = new HashMap<>();
-    private boolean loggedIn = false;
-    private boolean isInGame = false;
-    private static final int CARDS_IN_DECK = 52;
-    private static final int CARDS_IN_HAND = 13;
+    private volatile String username = null; //set by the UserRegistry
+    private volatile boolean isInGame = false;
+    private final AtomicBoolean connected = new AtomicBoolean(false); //for the active connections metric
+    private Request handledRequest; //the request handleMessage is handling, on the thread reading the client
+    private long handlingStart;
+    private boolean passedToRoom; //whether the request's latency is recorded by its room command
 
     /**
-     * The class constructor.
+     * The class constructor, used by the blocking server.
      * @param socket the socket accepted by the server.
      * @param clientId a unique ID given by the server.
+     * @param writerExecutor the executor running the writer of the client's connection.
+     * @throws IOException in/out communication exception
      */
-    public ClientHandler(Socket socket, int clientId) {
-        try {
-            this.socket = socket;
-            this.out = new ObjectOutputStream(socket.getOutputStream());
-            this.in = new ObjectInputStream(socket.getInputStream());
-            this.clientId = clientId;
-            clientHandlers.add(this);
-        } catch(IOException e) {
-            closeEverything(socket, in, out);
-        }
+    public ClientHandler(Socket socket, int clientId, Executor writerExecutor) throws IOException {
+        this(new SocketConnection(socket, writerExecutor), clientId);
+        this.socket = socket;
+        this.in = new DataInputStream(socket.getInputStream());
     }
 
     /**
-     * Handles most of client-server communication by responding accordingly based
-     * on the received Request.
+     * The class constructor, used by the non-blocking server, which reads the client's messages itself.
+     * @param connection the connection used to send messages to the client.
+     * @param clientId a unique ID given by the server.
+     */
+    public ClientHandler(Connection connection, int clientId) {
+        this.connection = connection;
+        this.clientId = clientId;
+    }
+
+    /**
+     * Used by the blocking server. Reads the client's messages one by one, and handles them
+     * until the client disconnects.
      */
     @Override
     public void run() {
         try {
-            out.writeObject(clientId);
+            sendClientId();
         } catch (IOException e) {
-            closeEverything(socket, in, out);
+            closeEverything();
         }
 
         while (socket.isConnected() && !socket.isClosed()){
             try {
-                Request request = (Request) in.readObject();
-
-                if (request == Request.REQUEST_USERNAME) {
-                    handleRequestUsername();
-                }
-                else if (request == Request.CREATE_ROOM)
-                {
-                    handleCreateRoom();
-                }
-                else if (request == Request.INVITE_PLAYER)
-                {
-                    handleInvitePlayer();
-                }
-                else if (request == Request.JOIN_ROOM)
-                {
-                    handleJoinRoom();
-                }
-                else if (request == Request.DEAL_CARDS) {
-                    handleDealCards();
-                }
-                else if (request == Request.PLAY_CARD) {
-                    handlePlayCard();
-                }
-                else if (request == Request.EXIT_GAME) {
-                    isInGame = false;
-                }
-                else if (request == Request.DISCONNECT) {
-                    handleDisconnect();
-                }
-
+                handleMessage(Message.readFrame(in));
+            } catch (IOException e) {
+                closeEverything();
+                Log.debug(() -> "Client: " + this.clientId + " disconnected", e);
+                break;
             } catch (Exception e) {
-                closeEverything(socket, in, out);
-                e.printStackTrace();
+                closeEverything();
+                Log.error("Client: " + this.clientId + " failed", e);
                 break;
             }
         }
     }
 
     /**
-     * Handles a client request to set a username. Looks through the list of connected clients
-     * to check if the username is taken, if it is ends "false", if not "true" and then the username.
+     * The first message sent to a newly connected client, holding its unique ID.
+     * @throws IOException in/out communication exception
+     */
+    public void sendClientId() throws IOException {
+        if (connected.compareAndSet(false, true)) metrics.connectionOpened();
+        send(new MessageWriter().writeInt(clientId).toByteArray());
+    }
+
+    /**
+     * Handles most of client-server communication by responding accordingly based
+     * on the received Request, and records how long handling it took in the ServerMetrics.
+     * If the request is passed on to its room's worker, the time is recorded once the worker is done with it.
+     * @param payload a single message received from the client.
+     * @throws IOException in/out communication exception
+     */
+    public void handleMessage(byte[] payload) throws IOException {
+        metrics.messageIn(payload.length);
+        MessageReader message = new MessageReader(payload);
+        Request request = message.readRequest();
+        handledRequest = request;
+        handlingStart = System.nanoTime();
+        passedToRoom = false;
+        try {
+            dispatch(request, message);
+        } finally {
+            if (!passedToRoom) {
+                metrics.request(request).record(System.nanoTime() - handlingStart);
+            }
+            handledRequest = null;
+        }
+    }
+
+    private void dispatch(Request request, MessageReader message) throws IOException {
+        if (request == Request.REQUEST_USERNAME) {
+            handleRequestUsername(message);
+        }
+        else if (request == Request.CREATE_ROOM)
+        {
+            handleCreateRoom();
+        }
+        else if (request == Request.INVITE_PLAYER)
+        {
+            handleInvitePlayer(message);
+        }
+        else if (request == Request.JOIN_ROOM)
+        {
+            handleJoinRoom(message);
+        }
+        else if (request == Request.DEAL_CARDS) {
+            handleDealCards();
+        }
+        else if (request == Request.PLAY_CARD) {
+            handlePlayCard(message);
+        }
+        else if (request == Request.EXIT_GAME) {
+            isInGame = false;
+        }
+        else if (request == Request.DISCONNECT) {
+            handleDisconnect();
+        }
+        else if (request == Request.SYNC_ROOM) {
+            handleSyncRoom();
+        }
+        else if (request == Request.QUERY_LOBBY) {
+            sendLobbyPage(message.readLobbyQuery());
+        }
+        else if (request == Request.ADD_BOT) {
+            handleAddBot();
+        }
+    }
+
+    /**
+     * Sends a single message to this handler's client.
+     * @param message the payload of the message, built with a MessageWriter.
+     * @throws IOException in/out communication exception
+     */
+    public void send(byte[] message) throws IOException {
+        connection.send(message);
+    }
+
+    /**
+     * Sends a message to the client, choosing what happens if the client can't keep up.
+     * @param message the payload of the message, built with a MessageWriter.
+     * @param policy what to do if too many messages are already waiting for the client.
+     * @throws IOException in/out communication exception
+     */
+    public void send(byte[] message, OverflowPolicy policy) throws IOException {
+        connection.send(message, policy);
+    }
+
+    /**
+     * Handles a client request to set a username. Tries to claim the username in the registry,
+     * if it is taken sends "false", if not "true" and then the username,
+     * followed by the first page of joinable rooms.
      * @throws IOException in/out communication exception
-     * @throws ClassNotFoundException if the class can't be identified after deserialization
-     */
-    private void handleRequestUsername() throws IOException, ClassNotFoundException {
-        String username = (String) in.readObject();
-
-        out.reset();
-        if (!usernames.containsValue(username)) {
-            addUsername(username);
-            this.loggedIn = true;
-            out.writeObject(Response.SET_USERNAME);
-            out.writeObject(true);
-            out.writeObject(username);
-            out.writeObject(rooms);
+     */
+    private void handleRequestUsername(MessageReader message) throws IOException {
+        String username = message.readString();
+
+        if (users.claim(username, this)) {
+            lobby.subscribe(this);
+            send(new MessageWriter()
+                    .writeResponse(Response.SET_USERNAME)
+                    .writeBoolean(true)
+                    .writeString(username)
+                    .toByteArray());
+            sendLobbyPage(LobbyQuery.firstPage());
         }
         else
         {
-            out.writeObject(Response.SET_USERNAME);
-            out.writeObject(false);
+            send(new MessageWriter().writeResponse(Response.SET_USERNAME).writeBoolean(false).toByteArray());
         }
-        out.flush();
+    }
+
+    /**
+     * Sends the client a page of room summaries, chosen by the query, and whether more rooms follow.
+     * @param query the page the client asked for.
+     * @throws IOException in/out communication exception
+     */
+    private void sendLobbyPage(LobbyQuery query) throws IOException {
+        List<RoomSummary> page = query.select(lobby.getOpenRooms());
+
+        boolean hasMore = page.size() > query.getPageSize();
+        int count = hasMore ? query.getPageSize() : page.size();
+        MessageWriter lobbyPage = new MessageWriter().writeResponse(Response.LOBBY_PAGE).writeByte(count);
+        for (int i = 0; i < count; i++) {
+            lobbyPage.writeRoomSummary(page.get(i));
+        }
+        send(lobbyPage.writeBoolean(hasMore).toByteArray());
     }
 
     /**
      * Handles the creation of a new room. After creating the room and setting all the necessary
      * parameters it broadcasts the newly created room to all players except for the host.
+     * A client already sitting in a room can't create another one.
      * @throws IOException in/out communication exception
      */
-    private void handleCreateRoom() throws IOException {
-        Room room = new Room(clientId, serverRoomId, usernames.get(this.clientId));
-        isInGame = true;
-        addRoom(serverRoomId, room);
-        serverRoomId++;
+    private void handleCreateRoom() {
+        int roomId = serverRoomId.getAndIncrement();
+
+        inRoom(roomId, () -> {
+            Room room = new Room(clientId, roomId, this.username);
+            //claimed atomically, since the client's other requests may be running on other rooms' workers
+            if (roomsByPlayer.putIfAbsent(this.clientId, room) != null) return;
+            isInGame = true;
+            room.setRandom(dealer.forRoom(roomId));
+            addRoom(roomId, room);
 
-        out.reset();
-        out.writeObject(Response.ROOM_CREATED);
-        out.writeObject(room);
-        out.flush();
+            send(new MessageWriter().writeResponse(Response.ROOM_CREATED).writeRoom(room).toByteArray());
 
-        broadcastRooms(room);
+            lobby.roomChanged(room);
+        });
     }
 
     /**
@@ -156,75 +280,124 @@ public class ClientHandler implements Runnable {
      * for the player in question, and forwards the invitation to the, in the form of the
      * Invitation object.
      * @throws IOException in/out communication exception
-     * @throws ClassNotFoundException if the class can't be identified after deserialization
      */
-    public void handleInvitePlayer() throws IOException, ClassNotFoundException {
-        String inviteName = (String) in.readObject(); //someone else's ID
-        int inviteId = 0;
-        for (Map.Entry<Integer, String> entry : usernames.entrySet()) {
-            if (entry.getValue().equals(inviteName)) inviteId = entry.getKey();
-        }
+    public void handleInvitePlayer(MessageReader message) throws IOException {
+        String inviteName = message.readString(); //someone else's username
+        ClientHandler handler = users.findByName(inviteName);
 
-        if (this.clientId != inviteId)
+        Room hostedRoom = findRoom(this.clientId);
+
+        if (handler != null && handler != this && !handler.isInGame && hostedRoom != null)
         {
-            for (ClientHandler handler : clientHandlers) {
-                if (handler.clientId == inviteId && !handler.isInGame)
-                {
-                    out.reset();
-                    handler.out.writeObject(Response.INVITATION);
-                    int foundRoomId = findRoom(this.clientId).getRoomId();
-                    Invitation invitation = new Invitation(foundRoomId, usernames.get(clientId));
-                    handler.out.writeObject(invitation);
-                    handler.out.flush();
-                    break;
-                }
-            }
+            Invitation invitation = new Invitation(hostedRoom.getRoomId(), this.username);
+            handler.send(new MessageWriter().writeResponse(Response.INVITATION).writeInvitation(invitation).toByteArray());
         }
     }
 
     /**
      * Called when a player requests to join a room. If the room in question isn't full, adds the player
      * to it, informs it that the request has been approved, and tells all the clients about the change in
-     * rooms.
+     * rooms. A client already sitting in a room can't join another one.
      * @throws IOException in/out communication exception
      */
-    private void handleJoinRoom() throws IOException {
-        int roomId = in.readInt();
+    private void handleJoinRoom(MessageReader message) throws IOException {
+        int roomId = message.readInt();
+
+        inRoom(roomId, () -> {
+            if (rooms.get(roomId) != null && updateRoom(roomId, this.clientId)){
+                Room room = rooms.get(roomId);
+                lobby.roomChanged(room);
+                broadcastRoomUpdate(room);
+                isInGame = true;
+
+                send(new MessageWriter().writeResponse(Response.JOINED_ROOM).writeRoom(room).toByteArray());
+
+                if (room.isFull()) startRound(room);
+            }
+        });
+    }
+
+    /**
+     * Called when a host wants a computer player to take an empty seat in their room. The bot joins the room
+     * like any other player, and the round starts if the room is now full.
+     */
+    private void handleAddBot() {
+        Room hostedRoom = findRoom(this.clientId);
+        if (hostedRoom == null) return;
+        int roomId = hostedRoom.getRoomId();
 
-        if (!rooms.get(roomId).isFull()){
-            updateRoom(roomId, this.clientId);
+        inRoom(roomId, () -> {
             Room room = rooms.get(roomId);
-            broadcastRooms(room);
-            isInGame = true;
+            if (room == null || room.isFull()) return;
 
-            out.reset();
-            out.writeObject(Response.JOINED_ROOM);
-            out.writeObject(room);
-            out.flush();
-        }
+            int botId = botIds.getAndDecrement();
+            BotPlayer bot = new BotPlayer(room, dealer.forBot(botId));
+            ClientHandler botHandler = new ClientHandler(bot, botId);
+            bot.setHandler(botHandler);
+            botHandler.setUsername("Bot " + -botId);
+            botHandler.isInGame = true;
+
+            botHandler.updateRoom(roomId, botId);
+            lobby.roomChanged(room);
+            botHandler.broadcastRoomUpdate(room);
+            Log.info(() -> "Client: " + this.clientId + " added bot " + botId + " to room " + roomId);
+
+            if (room.isFull()) startRound(room);
+        });
     }
 
     /**
-     * Deals cards to the client connected to this instance of the class. To ensure the cards are dealt
-     * at random, the list of cards is first shuffled.
-     * @throws IOException in/out communication exception
-     * @throws ClassNotFoundException if the class can't be identified after deserialization
+     * Sends the client the cards they're holding again. The cards are dealt by the server itself, when
+     * a round begins, so this is only needed by a client which lost track of its hand.
      */
-    private void handleDealCards() throws IOException, ClassNotFoundException {
-        int roomId = (int) in.readObject();
+    private void handleDealCards() {
+        Room currentRoom = roomsByPlayer.get(this.clientId);
+        if (currentRoom == null) return;
+        int roomId = currentRoom.getRoomId();
 
-        dealCards(roomId);
-        System.out.println("Dealt cards to player: " + this.clientId + " in room " + roomId);
+        inRoom(roomId, () -> {
+            try {
+                sendHand(rooms.get(roomId));
+            } catch (IOException e) {
+                closeEverything();
+            }
+        });
+    }
 
-        out.reset();
-        out.writeObject(Response.DEALT_CARDS);
-        for (int i = 0; i < CARDS_IN_DECK; i++)
-        {
-            if (rooms.get(roomId).getCards().get(i).getClientId() == this.clientId) {
-                out.writeObject(rooms.get(roomId).getCards().get(i));
+    /**
+     * Deals all four hands at once, with a single shuffle, and sends every player their cards.
+     * @param room the room where a round begins.
+     */
+    public void startRound(Room room) {
+        room.dealHands();
+        Log.debug(() -> "Dealt cards in room " + room.getRoomId() + ", round " + room.getCurrentRound());
+
+        long start = System.nanoTime();
+        for (ClientHandler handler : room.getSubscribers()) {
+            try {
+                handler.sendHand(room);
+            } catch (IOException e) {
+                handler.closeEverything();
             }
         }
-        out.flush();
+        metrics.getFanOut().record(System.nanoTime() - start);
+    }
+
+    /**
+     * Sends the client the cards they're currently holding, as a DEALT_CARDS message.
+     * @param room the client's room.
+     * @throws IOException in/out communication exception
+     */
+    private void sendHand(Room room) throws IOException {
+        int seat = room.getSeat(this.clientId);
+        if (seat == -1) return;
+
+        long hand = room.getHand(seat);
+        MessageWriter dealtCards = new MessageWriter().writeResponse(Response.DEALT_CARDS).writeByte(Hands.size(hand));
+        for (long remaining = hand; remaining != Hands.EMPTY; remaining &= remaining - 1) {
+            dealtCards.writeByte(Long.numberOfTrailingZeros(remaining)); //the bit's index is the card's byte
+        }
+        send(dealtCards.toByteArray());
     }
 
     /**
@@ -234,48 +407,62 @@ public class ClientHandler implements Runnable {
      * and another one starts. If none of the cards in the deck are in game, it starts a new round. And
      * if this was the final, 7th, round, it ends the game.
      * @throws IOException in/out communication exception
-     * @throws ClassNotFoundException if the class can't be identified after deserialization
      */
-    private void handlePlayCard() throws IOException, ClassNotFoundException {
-        Card card = (Card) in.readObject();
-        System.out.println("Client: " + this.clientId + " requested to play card: " + card.getValue() + " " + card.getSuit());
-        int roomId = (int) in.readObject();
+    private void handlePlayCard(MessageReader message) throws IOException {
+        Card card = message.readCard();
+        Log.debug(() -> "Client: " + this.clientId + " requested to play card: " + card.getValue() + " " + card.getSuit());
+        Room currentRoom = roomsByPlayer.get(this.clientId);
+        if (currentRoom == null) return;
+        int roomId = currentRoom.getRoomId();
+
+        inRoom(roomId, () -> playInRoom(roomId, card));
+    }
 
+    /**
+     * Plays a card for this handler's player, if the move is valid, and moves the game on. Runs on the room's
+     * worker, and is shared by the players' requests and the bots.
+     * @param roomId the player's room.
+     * @param card the card the player wants to play.
+     * @throws IOException in/out communication exception
+     */
+    void playInRoom(int roomId, Card card) throws IOException {
         if (validateMove(card, roomId)) {
-            int cardIndex = playCard(roomId, card);
+            playCard(roomId, card);
+            Room room = rooms.get(roomId);
 
-            out.reset();
-            out.writeObject(Response.PLAYED_CARD);
-            out.writeObject(rooms.get(roomId).getCards().get(cardIndex));
-            out.writeObject(rooms.get(roomId));
-            out.flush();
+            send(new MessageWriter()
+                    .writeResponse(Response.PLAYED_CARD)
+                    .writeInt(room.getSequence())
+                    .writeByte(room.getSeat(this.clientId))
+                    .writeCard(card)
+                    .writeByte(room.getSeat(room.getCurrentTurn()))
+                    .toByteArray());
 
-            broadcastPlay(rooms.get(roomId), card);
+            broadcastPlay(room, card);
 
-            if (rooms.get(roomId).getCardsOnTable().size() == 4) {
+            if (room.getCardsOnTable().size() == 4) {
                 int points = calculatePoints(roomId);
                 int takerClientId = pickLoosingPlayer(roomId);
 
                 endTurn(roomId, takerClientId, points);
 
-                broadcastPoints(points, takerClientId, rooms.get(roomId));
+                broadcastPoints(points, takerClientId, room);
 
-                int remainingCards = 0;
-                for (int i = 0; i < CARDS_IN_DECK; i++) {
-                    if (rooms.get(roomId).getCards().get(i).isInHand()) remainingCards++;
-                }
-
-                if (remainingCards == 0) {
+                if (room.allHandsEmpty()) {
 
-                    if (rooms.get(roomId).getCurrentRound() == 7) {
+                    if (room.getCurrentRound() == scoring.getRoundCount()) {
                         int winnerId = findWinner(roomId);
-                        String winnerName = usernames.get(winnerId);
+                        String winnerName = room.getConnectedPlayersNames().get(room.getSeat(winnerId)); //bots have no registered username
                         endGame(roomId);
-                        broadcastVictory(rooms.get(roomId), winnerName);
+                        //before the broadcast, so that a player creating or joining another room right after
+                        //the GAME_OVER isn't still seated in this one
+                        removeRoom(roomId);
+                        broadcastVictory(room, winnerName);
                     }
                     else {
                         changeRound(roomId);
-                        broadcastRoundChange(rooms.get(roomId));
+                        broadcastRoundChange(room);
+                        startRound(room);
                     }
                 }
             }
@@ -283,120 +470,173 @@ public class ClientHandler implements Runnable {
     }
 
     /**
-     * Called when a client closes their application. If a game was currently in progress,
-     * a winner is chosen based on the current scores and the game ends.
+     * Called when a client noticed it missed an update of its room, and asks for a full snapshot.
      * @throws IOException in/out communication exception
-     * @throws ClassNotFoundException if the class can't be identified after deserialization
      */
-    private void handleDisconnect() throws IOException, ClassNotFoundException {
-        int roomId = (int) in.readObject();
-        usernames.remove(this.clientId);
+    private void handleSyncRoom() {
+        Room room = roomsByPlayer.get(this.clientId);
+        if (room == null) return;
 
-        if (rooms.get(roomId) == null) {
-            closeEverything(socket, in, out);
-        }
+        inRoom(room.getRoomId(), () -> {
+            send(new MessageWriter().writeResponse(Response.ROOM_SNAPSHOT).writeRoom(room).toByteArray());
+        });
+    }
+
+    /**
+     * Called when a client closes their application. Leaving the client's room is done by closeEverything(),
+     * just like when the connection breaks.
+     */
+    private void handleDisconnect() {
+        closeEverything();
+    }
+
+    /**
+     * Gives up the client's seat, once they disconnected. Runs on the room's worker.
+     * <p>
+     *     If a game was in progress, a winner is chosen based on the current scores, and the game ends.
+     *     Before the game, the player leaves the waiting room. If the host left, or no one is left,
+     *     the room is closed, and whoever is still waiting in it is told so with ROOM_CLOSED. Otherwise the
+     *     other players, and the lobby, learn about the free seat.
+     * </p>
+     * @param room the room the client sat in.
+     */
+    private void leaveRoom(Room room) {
+        if (!roomsByPlayer.remove(this.clientId, room)) return; //already left
+        room.unsubscribe(this);
+        int roomId = room.getRoomId();
+        if (rooms.get(roomId) != room) return; //the game is over, and the room already removed
 
-        if (!rooms.get(roomId).getGameOver()) {
+        if (room.isFull()) {
             int winnerId = findWinner(roomId);
-            String winnerName = usernames.get(winnerId);
+            String winnerName = room.getConnectedPlayersNames().get(room.getSeat(winnerId));
             endGame(roomId);
+            removeRoom(roomId); //before the broadcast, see playInRoom()
+            broadcastVictory(room, winnerName);
+            return;
+        }
 
-            closeEverything(socket, in, out);
-            broadcastVictory(rooms.get(roomId), winnerName);
+        room.removePlayer(this.clientId);
+        if (this.clientId == room.getHostId() || room.getConnectedPlayers().isEmpty()) {
             removeRoom(roomId);
+            for (ClientHandler handler : room.getSubscribers()) {
+                handler.isInGame = false;
+            }
+            fanOut(room, new MessageWriter().writeResponse(Response.ROOM_CLOSED).writeInt(roomId).toByteArray(), null);
+        }
+        else {
+            lobby.roomChanged(room);
+            fanOut(room, new MessageWriter().writeResponse(Response.ROOMS_UPDATE).writeRoom(room).toByteArray(), null);
         }
     }
 
     /**
-     * Adds a new user to a HashMap containing all the connected user's ID's and usernames.
-     * @param username the username this client chose, and the server accepted.
+     * Runs a command on the worker thread owning the room, after all the room's earlier commands.
+     * If the command fails, the client is disconnected, just like when handling its message fails.
+     * @param roomId the room the command reads or changes.
+     * @param command the command.
+     */
+    void inRoom(int roomId, RoomCommand command) {
+        Request request = handledRequest; //null for a bot's own commands
+        long start = handlingStart;
+        if (request != null) passedToRoom = true;
+
+        roomExecutor.execute(roomId, () -> {
+            try {
+                command.run();
+            } catch (Exception e) {
+                closeEverything();
+                Log.error("Client: " + this.clientId + " failed in room " + roomId, e);
+            }
+            if (request != null) {
+                metrics.request(request).record(System.nanoTime() - start);
+            }
+        });
+    }
+
+    /**
+     * A part of handling a request, which reads or changes a room, and thus has to run on the room's worker thread.
      */
-    public synchronized void addUsername(String username) {
-        usernames.put(this.clientId, username);
+    @FunctionalInterface
+    interface RoomCommand {
+        void run() throws IOException;
     }
 
     /**
-     * Broadcasts a newly created, or updated room to all clients
-     * @param room the new room
+     * Sends a message, encoded once, to the players in a room, and records how long it took in the ServerMetrics.
+     * @param room the room.
+     * @param message the payload of the message.
+     * @param skipped a player who doesn't get the message, or null.
      */
-    public synchronized void broadcastRooms(Room room){
-        for (ClientHandler handler : clientHandlers){
+    private static void fanOut(Room room, byte[] message, ClientHandler skipped) {
+        long start = System.nanoTime();
+        for (ClientHandler handler : room.getSubscribers()){
             try {
-                if (handler != this && handler.loggedIn)
+                if (handler != skipped)
                 {
-                    handler.out.reset();
-                    handler.out.writeObject(Response.ROOMS_UPDATE);
-                    handler.out.writeObject(room);
-                    out.flush();
+                    handler.send(message);
                 }
             } catch (IOException e){
-                closeEverything(socket, in, out);
+                handler.closeEverything();
             }
         }
+        metrics.getFanOut().record(System.nanoTime() - start);
+    }
+
+    /**
+     * Broadcasts a room a player just joined to the other players in it, so that they can update their
+     * waiting room, and start the game once the room is full. The lobby learns about it on the next tick.
+     * @param room the updated room
+     */
+    public void broadcastRoomUpdate(Room room){
+        byte[] message = new MessageWriter().writeResponse(Response.ROOMS_UPDATE).writeRoom(room).toByteArray();
+        fanOut(room, message, this);
     }
 
     /**
-     * Broadcasts the changes caused by a player playing a card, to all players in the rooom
+     * Broadcasts the card a player played, to all other players in the room, along with whose turn it is now.
      * @param room room with updated deck and turn
-     * @param playedCard the played card, for making updating the GUI easier
+     * @param playedCard the played card
      */
-    public synchronized void broadcastPlay(Room room, Card playedCard){
-        for (ClientHandler handler : clientHandlers){
-            try {
-                if (handler != this && room.getConnectedPlayers().contains(handler.clientId))
-                {
-                    handler.out.reset();
-                    handler.out.writeObject(Response.CARDS_UPDATE);
-                    handler.out.writeObject(playedCard);
-                    handler.out.writeObject(room);
-                    out.flush();
-                }
-            } catch (IOException e){
-                closeEverything(socket, in, out);
-            }
-        }
+    public void broadcastPlay(Room room, Card playedCard){
+        byte[] message = new MessageWriter()
+                .writeResponse(Response.CARDS_UPDATE)
+                .writeInt(room.getSequence())
+                .writeByte(room.getSeat(this.clientId))
+                .writeCard(playedCard)
+                .writeByte(room.getSeat(room.getCurrentTurn()))
+                .toByteArray();
+        fanOut(room, message, this);
     }
 
     /**
-     * Broadcasts information at the end of a turn, to all players in the room
+     * Broadcasts information at the end of a turn, to all players in the room. The player who receives
+     * the points also starts the next turn.
      * @param points the amount of points received by one player
      * @param clientId the player who receives the points
      * @param room the updated room, ready for the next turn
      */
-    public synchronized void broadcastPoints(int points, int clientId, Room room) {
-        for (ClientHandler handler : clientHandlers ){
-            try {
-                if (room.getConnectedPlayers().contains(handler.clientId)) {
-                    handler.out.reset();
-                    handler.out.writeObject(Response.TURN_OVER);
-                    handler.out.writeObject(clientId);
-                    handler.out.writeObject(points);
-                    handler.out.writeObject(room);
-                    handler.out.flush();
-                }
-            } catch (IOException e){
-                closeEverything(socket, in, out);
-            }
-        }
+    public void broadcastPoints(int points, int clientId, Room room) {
+        byte[] message = new MessageWriter()
+                .writeResponse(Response.TURN_OVER)
+                .writeInt(room.getSequence())
+                .writeByte(room.getSeat(clientId))
+                .writeInt(points)
+                .toByteArray();
+        fanOut(room, message, null);
     }
 
     /**
      * Informs all the players in the room that the round is over, and thus a new one started
      * @param room the updated room, ready for the next round
      */
-    public synchronized void broadcastRoundChange(Room room) {
-        for (ClientHandler handler : clientHandlers){
-            try {
-                if (room.getConnectedPlayers().contains(handler.clientId)) {
-                    handler.out.reset();
-                    handler.out.writeObject(Response.ROUND_OVER);
-                    handler.out.writeObject(room);
-                    handler.out.flush();
-                }
-            } catch (IOException e){
-                closeEverything(socket, in, out);
-            }
-        }
+    public void broadcastRoundChange(Room room) {
+        byte[] message = new MessageWriter()
+                .writeResponse(Response.ROUND_OVER)
+                .writeInt(room.getSequence())
+                .writeByte(room.getCurrentRound())
+                .writeByte(room.getSeat(room.getCurrentTurn()))
+                .toByteArray();
+        fanOut(room, message, null);
     }
 
     /**
@@ -404,32 +644,32 @@ public class ClientHandler implements Runnable {
      * @param room the room in which the game ended
      * @param winnerName the winner
      */
-    public synchronized void broadcastVictory(Room room, String winnerName) { //TODO username not ID
-        for (ClientHandler handler : clientHandlers){
-            try {
-                if (room.getConnectedPlayers().contains(handler.clientId)) {
-                    handler.out.reset();
-                    handler.out.writeObject(Response.GAME_OVER);
-                    handler.out.writeObject(winnerName);
-                    handler.out.writeObject(room);
-                    handler.out.flush();
-                }
-            } catch (IOException e){
-                closeEverything(socket, in, out);
-            }
-        }
+    public void broadcastVictory(Room room, String winnerName) { //TODO username not ID
+        byte[] message = new MessageWriter()
+                .writeResponse(Response.GAME_OVER)
+                .writeInt(room.getSequence())
+                .writeInt(room.getRoomId())
+                .writeString(winnerName)
+                .toByteArray();
+        fanOut(room, message, null);
     }
 
     /**
-     * Updates all room parameters
+     * Seats the client in the room, unless the room is full, or the client already sits in a room.
+     * Runs on the room's worker, so the seat can't be taken in the meantime, while the client's seat in
+     * roomsByPlayer is claimed atomically, since the client's other requests may run on other workers.
      * @param roomId the room being updated
      * @param clientId the client being added to the room
+     * @return whether the client was seated
      */
-    public synchronized void updateRoom(int roomId, int clientId) {
-        if (!rooms.get(roomId).isFull())
-        {
-            rooms.get(roomId).addPlayer(clientId, usernames.get(clientId)); //already sets the isFull field accordingly
+    public boolean updateRoom(int roomId, int clientId) {
+        Room room = rooms.get(roomId);
+        if (room.isFull() || roomsByPlayer.putIfAbsent(clientId, room) != null) {
+            return false;
         }
+        room.addPlayer(clientId, this.username); //already sets the isFull field accordingly
+        room.subscribe(this);
+        return true;
     }
 
     /**
@@ -438,148 +678,51 @@ public class ClientHandler implements Runnable {
      * @return the found room or null
      */
     public Room findRoom(int hostId) {
-        for (Map.Entry<Integer, Room> entry : rooms.entrySet()) {
-            if (entry.getValue().getHostId() == hostId) return entry.getValue();
-        }
-        return null;
+        return roomsByHost.get(hostId);
     }
 
     /**
-     * Add a new room, created by a client
-     * @param room the newly created room
+     * @return the amount of open rooms, whether their game started or not
      */
-    public synchronized void addRoom(int roomId, Room room) {
-        rooms.put(roomId, room);
+    static int getRoomCount() {
+        return rooms.size();
     }
 
     /**
-     * Chooses which cards to give to the client, while making sure there are no duplicates
-     * @param roomId the player's room
+     * Add a new room, created by a client, whose seat in roomsByPlayer has already been claimed
+     * @param room the newly created room
      */
-    public synchronized void dealCards(int roomId) {
-        System.out.println("Dealt cards : ");
-
-        Collections.shuffle(rooms.get(roomId).getCards());
-
-        int counter = 0;
-        for (int i = 0; i < CARDS_IN_DECK && counter < CARDS_IN_HAND; i++)
-        {
-            if (rooms.get(roomId).getCards().get(i).getClientId() == 0) {
-                rooms.get(roomId).getCards().get(i).setClientId(this.clientId);
-                //System.out.println("Card: " + rooms.get(roomId).getCards().get(i).getValue() + " suit: " + rooms.get(roomId).getCards().get(i).getSuit());
-                counter++;
-            }
-        }
-
-        System.out.println("to player: " + this.clientId);
+    public void addRoom(int roomId, Room room) {
+        rooms.put(roomId, room);
+        roomsByHost.put(room.getHostId(), room);
+        room.subscribe(this);
     }
 
     /**
      * Sets the card as played, and updates whose turn it is to play
      * @param roomId room in which the card was played
      * @param playedCard card played
-     * @return the index of the played card, so that the updated card can be sent to the client
      */
-    public synchronized int playCard(int roomId, Card playedCard) {
-
-        int cardIndex = 0;
-        for (int i = 0; i < CARDS_IN_DECK; i++){
-            if (rooms.get(roomId).getCards().get(i).getSuit() == playedCard.getSuit()
-                    && rooms.get(roomId).getCards().get(i).getValue() == playedCard.getValue()){
-                cardIndex = i;
-                break;
-            }
-        }
-        rooms.get(roomId).getCards().get(cardIndex).setInHand(false);
+    public void playCard(int roomId, Card playedCard) {
+        rooms.get(roomId).removeFromHand(rooms.get(roomId).getSeat(this.clientId), playedCard);
         rooms.get(roomId).changeTurn();
-        if (rooms.get(roomId).getCardsOnTable().size() == 0) rooms.get(roomId).setFirstCardOnTable(rooms.get(roomId).getCards().get(cardIndex));
-        rooms.get(roomId).getCardsOnTable().put(this.clientId, rooms.get(roomId).getCards().get(cardIndex)); //not playedCard, because we want to keep the updated inHand field
-        return cardIndex;
+        rooms.get(roomId).putOnTable(this.clientId, playedCard);
+        rooms.get(roomId).incrementSequence();
     }
 
     /**
-     * Decides whether the player is allowed to play the card they chose
+     * Decides whether the player is allowed to play the card they chose, following the Rules, which are
+     * checked on the player's hand bitboard.
      * @param card the card the player wants to play
      * @param roomId the room where the game's taking place
      * @return true if the player is allowed to play the card, false otherwise
      */
     public boolean validateMove(Card card, int roomId) {
+        Room room = rooms.get(roomId);
+        int seat = room.getSeat(this.clientId);
+        if (seat == -1 || room.getCurrentTurn() != this.clientId) return false;
 
-        if (rooms.get(roomId).getCurrentRound() == 1
-                || rooms.get(roomId).getCurrentRound() == 3
-                || rooms.get(roomId).getCurrentRound() == 4
-                || rooms.get(roomId).getCurrentRound() == 6) {
-            return handleRound1346(card, roomId);
-        }
-        else {
-            return handleRound257(card, roomId);
-        }
-    }
-
-    /**
-     * Validates a player's move in rounds 1, 3, 4 and 6
-     * @param card the card the player wants to play
-     * @param roomId the room where the game's taking place
-     * @return true if they are allowed to play the card, false otherwise
-     */
-    public boolean handleRound1346(Card card, int roomId) {
-        if (rooms.get(roomId).getCardsOnTable().size() == 0) {
-            return true;
-        }
-        else {
-            Suit currentSuit = rooms.get(roomId).getFirstCardOnTable().getSuit();
-            if (card.getSuit() == currentSuit) return true;
-
-            return hasMatchingColor(currentSuit, roomId);
-        }
-    }
-
-    /**
-     * Validates a player's move in rounds 2, 5 and 7
-     * @param card the card the player wants to play
-     * @param roomId the room where the game's taking place
-     * @return true if they are allowed to play the card, false otherwise
-     */
-    public boolean handleRound257(Card card, int roomId) {
-        if (rooms.get(roomId).getCardsOnTable().size() == 0) {
-            if (card.getSuit() != Suit.HEART) return true;
-            else { // the card is a heart
-                boolean hasOtherThanHeart = false;
-                for (int i = 0; i < CARDS_IN_DECK; i++) {
-                    if (rooms.get(roomId).getCards().get(i).getClientId() == this.clientId
-                            && rooms.get(roomId).getCards().get(i).getSuit() != Suit.HEART
-                            && rooms.get(roomId).getCards().get(i).isInHand()){
-                        hasOtherThanHeart = true;
-                    }
-                }
-
-                return !hasOtherThanHeart;
-            }
-        }
-        else {
-            Suit currentSuit = rooms.get(roomId).getFirstCardOnTable().getSuit();
-            if (currentSuit == card.getSuit()) return true;
-
-            return hasMatchingColor(currentSuit, roomId);
-        }
-    }
-
-    /**
-     * Checks it the player has a card that matchers the color of the first card
-     * @param currentSuit the suit of the first card that was played in this turn
-     * @param roomId the room where the game's taking place
-     * @return false if the player has a matching card, true when they don't, and thus are allowed to play any card
-     */
-    public boolean hasMatchingColor(Suit currentSuit, int roomId){
-        boolean hasMatchingColor = false;
-        for (int i = 0; i < CARDS_IN_DECK; i++) {
-            if (rooms.get(roomId).getCards().get(i).getClientId() == this.clientId
-                    && rooms.get(roomId).getCards().get(i).getSuit() == currentSuit
-                    && rooms.get(roomId).getCards().get(i).isInHand()){
-                hasMatchingColor = true;
-            }
-        }
-        return !hasMatchingColor;
+        return Rules.isLegal(room.getCurrentRound(), room.getHand(seat), room.getLedSuit(), card);
     }
 
     /**
@@ -588,95 +731,47 @@ public class ClientHandler implements Runnable {
      * @param clientId the client taking the cards
      * @param points the amount of points the client receives
      */
-    public synchronized void endTurn(int roomId, int clientId, int points) {
-        rooms.get(roomId).getCardsOnTable().clear();
-        rooms.get(roomId).setFirstCardOnTable(null);
+    public void endTurn(int roomId, int clientId, int points) {
+        rooms.get(roomId).clearTable();
         rooms.get(roomId).setCurrentTurn(clientId);
         rooms.get(roomId).givePoints(clientId, points); //playerPoints is filled with 0's when the fourth player joins
         rooms.get(roomId).incrementTurnCounter(); //necessary for the 6th round
+        rooms.get(roomId).incrementSequence();
     }
 
     /**
      * Increments the current round
      * @param roomId the room in which the round changes
      */
-    public synchronized void changeRound(int roomId) {
-        for (int i = 0; i < CARDS_IN_DECK; i++) {
-            rooms.get(roomId).getCards().get(i).resetCard();
-        }
+    public void changeRound(int roomId) {
+        rooms.get(roomId).clearHands();
 
         rooms.get(roomId).setCurrentTurn(rooms.get(roomId).getHostId());
         rooms.get(roomId).changeTurn();
         rooms.get(roomId).resetTurnCounter();
         rooms.get(roomId).incrementCurrentRound();
+        rooms.get(roomId).incrementSequence();
     }
 
     /**
-     * Calculated the amount of points a player will gain based on the round
+     * Calculates the amount of points a player will gain for the trick on the table, using the round's
+     * scoring tables.
      * @param roomId the room in which the game's taking place
      * @return the amount of points the player will gain
      */
     public int calculatePoints(int roomId) {
-        int points = 0;
-
-        if (rooms.get(roomId).getCurrentRound() == 1) {
-            points = 20; //someone is guaranteed to get points every turn
-        }
-        else if (rooms.get(roomId).getCurrentRound() == 2) {
-            for (Map.Entry<Integer, Card> entry : rooms.get(roomId).getCardsOnTable().entrySet()) {
-                if (entry.getValue().getSuit() == Suit.HEART) points += 20; //for every heart
-            }
-        }
-        else if (rooms.get(roomId).getCurrentRound() == 3) {
-            for (Map.Entry<Integer, Card> entry : rooms.get(roomId).getCardsOnTable().entrySet()) {
-                if (entry.getValue().getValue() == 12) points += 60; //for every queen
-            }
-        }
-        else if (rooms.get(roomId).getCurrentRound() == 4) {
-            for (Map.Entry<Integer, Card> entry : rooms.get(roomId).getCardsOnTable().entrySet()) {
-                if (entry.getValue().getValue() == 11 || entry.getValue().getValue() == 13) points += 30; //for every sir
-            }
-        }
-        else if (rooms.get(roomId).getCurrentRound() == 5) {
-            for (Map.Entry<Integer, Card> entry : rooms.get(roomId).getCardsOnTable().entrySet()) {
-                if (entry.getValue().getValue() == 13 && entry.getValue().getSuit() == Suit.HEART) points += 150; //for every king of hearts
-            }
-        }
-        else if (rooms.get(roomId).getCurrentRound() == 6) {
-            for (Map.Entry<Integer, Card> ignored : rooms.get(roomId).getCardsOnTable().entrySet()) {
-                if (rooms.get(roomId).getTurnCounter() == 7 || rooms.get(roomId).getTurnCounter() == 13) points += 75; //for the 7th and last turn
-            }
-        }
-        else {
-            points += 20; //someone is guaranteed to get points every turn
-            for (Map.Entry<Integer, Card> entry : rooms.get(roomId).getCardsOnTable().entrySet()) {
-                if (entry.getValue().getSuit() == Suit.HEART) points += 20;
-                if (entry.getValue().getValue() == 12) points += 60;
-                if (entry.getValue().getValue() == 11 || entry.getValue().getValue() == 13) points += 30;
-                if (entry.getValue().getValue() == 13 && entry.getValue().getSuit() == Suit.HEART) points += 150;
-                if (rooms.get(roomId).getTurnCounter() == 7 || rooms.get(roomId).getTurnCounter() == 13) points += 75;
-            }
-        }
-
-        return points;
+        Room room = rooms.get(roomId);
+        return scoring.score(room.getCurrentRound(), room.getTableMask(), room.getTurnCounter());
     }
 
     /**
-     * Picks the player who will gain points this turn, based on the cards on the table
+     * Picks the player who will gain points this turn, that is the one who played the highest card
+     * of the led suit. The room keeps track of them as the cards are played.
      * @param roomId the room where the game takes place
      * @return the loosing client's ID
      */
     public int pickLoosingPlayer(int roomId) {
-        int oldestCardValue = 1;
-        int takerClientId = 0;
-        for (Map.Entry<Integer, Card> entry : rooms.get(roomId).getCardsOnTable().entrySet()) {
-            if (entry.getValue().getValue() > oldestCardValue
-                    && entry.getValue().getSuit() == rooms.get(roomId).getFirstCardOnTable().getSuit()) {
-                oldestCardValue = entry.getValue().getValue();
-                takerClientId = entry.getValue().getClientId();
-            }
-        }
-        return takerClientId;
+        return rooms.get(roomId).getTrickTaker();
     }
 
     /**
@@ -696,47 +791,74 @@ public class ClientHandler implements Runnable {
         return winnerId;
     }
 
-    public synchronized void endGame(int roomId) {
+    public void endGame(int roomId) {
+        metrics.gameCompleted();
         rooms.get(roomId).toggleGameOver();
+        rooms.get(roomId).incrementSequence();
+        lobby.roomRemoved(roomId);
     }
 
     /**
-     * Removes a room after a game has ended.
+     * Removes a room after a game has ended, or once it was closed, along with its players' and host's seats
+     * in the indexes, and its summary in the lobby.
      * @param roomId the ID of the room being removed
      */
-    public synchronized void removeRoom(int roomId) {
-        rooms.remove(roomId);
+    public void removeRoom(int roomId) {
+        Room room = rooms.remove(roomId);
+        if (room == null) return;
+
+        roomsByHost.remove(room.getHostId(), room);
+        for (Integer player : room.getConnectedPlayers()) {
+            roomsByPlayer.remove(player, room);
+        }
+        lobby.roomRemoved(roomId);
     }
 
     /**
-     * Removes the clientHandler when the client disconnects
+     * Removes the clientHandler from the registry when the client disconnects, freeing their username
      */
     public void removeClientHandler(){
-        clientHandlers.remove(this);
+        users.release(this);
+    }
+
+    public int getClientId() {
+        return clientId;
+    }
+
+    public String getUsername() {
+        return username;
     }
 
     /**
-     * Severs all client-server connection.
-     * @param socket the socket accepted by the server.
-     * @param in input stream.
-     * @param out output stream.
+     * Only called by the UserRegistry, once the username has been claimed.
+     * @param username the client's username.
      */
-    private void closeEverything(Socket socket, ObjectInputStream in, ObjectOutputStream out){
+    void setUsername(String username) {
+        this.username = username;
+    }
+
+    /**
+     * Severs all client-server connection, and gives up the client's seat, if they sat in a room.
+     * Safe to call more than once, and from any thread: the seat is given up on the room's worker.
+     */
+    public void closeEverything(){
+        if (connected.compareAndSet(true, false)) metrics.connectionClosed();
+        OutboundQueue outbound = connection.getOutboundQueue();
+        if (outbound.getDepth() > 0) {
+            Log.info(() -> "Client: " + this.clientId + " left with " + outbound.getDepth() + " unsent messages");
+        }
         removeClientHandler();
-        try {
-            if (in != null)
-            {
-                in.close();
-            }
-            if (out != null)
-            {
-                out.close();
-            }
-            if (socket != null){
-                socket.close();
-            }
-        } catch (IOException e){
-            e.printStackTrace();
+        lobby.unsubscribe(this);
+        Room currentRoom = roomsByPlayer.get(this.clientId);
+        if (currentRoom != null) {
+            roomExecutor.execute(currentRoom.getRoomId(), () -> {
+                try {
+                    leaveRoom(currentRoom);
+                } catch (Exception e) {
+                    Log.error("Client: " + this.clientId + " failed to leave room " + currentRoom.getRoomId(), e);
+                }
+            });
         }
+        connection.close();
     }
 }
@@ -0,0 +1,38 @@
+package com.example.kierki;
+
+import java.io.IOException;
+
+/**
+ * The Connection interface hides how messages actually reach a client, so that the ClientHandler can
+ * run the same logic whether the server uses a thread per client, or a selector based event loop.
+ */
+public interface Connection {
+
+    /**
+     * Queues a single message for the client. The message is written out later by the connection's own writer,
+     * so a slow client never blocks the sender.
+     * @param message the payload of the message, built with a MessageWriter.
+     * @param policy what to do if too many messages are already waiting for the client.
+     * @throws IOException if the connection is closed, or the queue overflowed with the DISCONNECT policy
+     */
+    void send(byte[] message, OverflowPolicy policy) throws IOException;
+
+    /**
+     * Queues a single message for the client, which gets disconnected if it can't keep up.
+     * @param message the payload of the message, built with a MessageWriter.
+     * @throws IOException if the connection is closed, or the queue overflowed
+     */
+    default void send(byte[] message) throws IOException {
+        send(message, OverflowPolicy.DISCONNECT);
+    }
+
+    /**
+     * @return the messages waiting to be written to the client
+     */
+    OutboundQueue getOutboundQueue();
+
+    /**
+     * Severs the connection with the client.
+     */
+    void close();
+}
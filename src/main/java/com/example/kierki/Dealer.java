@@ -0,0 +1,83 @@
+package com.example.kierki;
+
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * The Dealer hands out the random generators the rooms shuffle their decks with, and the bots search with.
+ * <p>
+ *     Every room gets a generator of its own, so rooms on different workers never share one. The algorithm
+ *     can be changed with the kierki.rng system property, and defaults to L64X128MixRandom, a fast splittable
+ *     generator. Setting the kierki.seed system property makes the games reproducible: a room's generator is
+ *     then seeded from that seed and the room's ID, so a room gets the same deals every time it gets
+ *     the same ID.
+ * </p>
+ * <p>
+ *     The seed and the ID are mixed with SplitMix64's finalizer rather than added, so neighbouring seeds and
+ *     IDs get unrelated streams: with a sum, room 8 of seed 42 would deal exactly like room 7 of seed 43.
+ *     A bot's generator is mixed from the seed and a salt of its own first, so that the bots' searches never
+ *     replay a room's deals.
+ * </p>
+ */
+public class Dealer {
+    public static final String DEFAULT_ALGORITHM = System.getProperty("kierki.rng", "L64X128MixRandom");
+    public static final Long DEFAULT_SEED = Long.getLong("kierki.seed");
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long BOT_SALT = 0xB07B07B07B07B07BL;
+    private final RandomGeneratorFactory<RandomGenerator> factory;
+    private final Long seed;
+
+    public Dealer() {
+        this(DEFAULT_ALGORITHM, DEFAULT_SEED);
+    }
+
+    /**
+     * The class constructor.
+     * @param algorithm the name of the random generator algorithm, see RandomGeneratorFactory.
+     * @param seed the seed of all the rooms' generators, or null for unpredictable deals.
+     * @throws IllegalArgumentException if the algorithm doesn't exist
+     */
+    public Dealer(String algorithm, Long seed) {
+        this.factory = RandomGeneratorFactory.of(algorithm);
+        this.seed = seed;
+    }
+
+    /**
+     * @param roomId the ID of the room.
+     * @return a new random generator, for that room only
+     */
+    public RandomGenerator forRoom(int roomId) {
+        return seed == null ? factory.create() : factory.create(mix(seed ^ roomId * GOLDEN_GAMMA));
+    }
+
+    /**
+     * @param botId the ID of the bot.
+     * @return a new random generator, for that bot's searches only
+     */
+    public RandomGenerator forBot(int botId) {
+        return seed == null ? factory.create() : factory.create(mix(mix(seed ^ BOT_SALT) ^ botId * GOLDEN_GAMMA));
+    }
+
+    /**
+     * SplitMix64's finalizer: a bijection of the longs, where every bit of the input affects every bit of the output.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Shuffles the cards with the Fisher-Yates algorithm.
+     * @param cards the cards to shuffle, in place.
+     * @param random the generator to shuffle with.
+     */
+    public static void shuffle(Card[] cards, RandomGenerator random) {
+        for (int i = cards.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Card card = cards[i];
+            cards[i] = cards[j];
+            cards[j] = card;
+        }
+    }
+}
@@ -12,6 +12,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -144,6 +145,20 @@ public class GameController {
 
             i++;
         }
+        updatePlayableCards();
+    }
+
+    /**
+     * Disables the cards the player isn't allowed to play, and dims them while it's the player's turn,
+     * so that only moves the server accepts can be clicked.
+     */
+    public void updatePlayableCards() {
+        long legalMoves = client.getLegalMoves();
+        for (Map.Entry<Integer, ImageView> entry : cardsOnScreen.entrySet()) {
+            boolean playable = Hands.contains(legalMoves, client.getCardsInHand().get(entry.getKey()));
+            entry.getValue().setDisable(!playable);
+            entry.getValue().setOpacity(playable || legalMoves == Hands.EMPTY ? 1.0 : 0.5);
+        }
     }
 
     /**
@@ -198,7 +213,12 @@ public class GameController {
         roundLabel.setText("Round: " + round);
     }
 
+    /**
+     * Highlights the player whose turn it is, and updates which cards can be played.
+     * @param clientId the player whose turn it is.
+     */
     public void highlightPlayer(int clientId) {
+        updatePlayableCards();
         clearHighlightedLabels();
         if (clientId == client.getClientId()) currentPlayerLabel.setTextFill(Color.GREEN);
         else if (otherPlayerIds.get(0) == clientId) otherPlayerLabel1.setTextFill(Color.GREEN);
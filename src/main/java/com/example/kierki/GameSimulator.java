@@ -0,0 +1,152 @@
+package com.example.kierki;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.random.RandomGenerator.SplittableGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * Plays many whole games in memory, spread over all the processors, and measures how many games per second
+ * the rules can get through.
+ * <p>
+ *     The games are split in halves with fork/join until a batch is small enough to be played on one thread.
+ *     Every half gets its own generator, split from its parent's, so no generator is ever shared between
+ *     threads, and a seeded run deals exactly the same games however the batches get scheduled.
+ * </p>
+ * <p>
+ *     Usage: GameSimulator [games] [strategies] [seed]. The strategies are either one name for all four seats,
+ *     or four comma separated names (random, lowest). The generator's algorithm is the Dealer's, and has
+ *     to be splittable.
+ * </p>
+ */
+public class GameSimulator {
+    private static final int BATCH_SIZE = 256;
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Strategy[] strategies = parseStrategies(args.length > 1 ? args[1] : "random");
+        Long seed = args.length > 2 ? Long.valueOf(args[2]) : Dealer.DEFAULT_SEED;
+
+        simulate(Math.min(games, 10_000), strategies, Scoring.STANDARD, createGenerator(seed)); //warms up the JIT
+
+        long start = System.nanoTime();
+        Results results = simulate(games, strategies, Scoring.STANDARD, createGenerator(seed));
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("Games:            " + results.games + " on " + ForkJoinPool.getCommonPoolParallelism() + " threads");
+        System.out.printf("Time:             %.2f s%n", seconds);
+        System.out.printf("Games per second: %.0f (%.1f million per minute)%n", results.games / seconds, results.games * 60 / seconds / 1e6);
+        for (int seat = 0; seat < SimulatedGame.PLAYERS; seat++) {
+            System.out.printf("Seat %d:           %.2f%% wins, %.1f points on average%n",
+                    seat, 100.0 * results.wins[seat] / results.games, (double) results.points[seat] / results.games);
+        }
+    }
+
+    /**
+     * Plays the games on the common fork/join pool, and waits for all of them to end.
+     * @param games the amount of games.
+     * @param strategies the strategy of every seat.
+     * @param scoring the rounds of every game.
+     * @param random the generator the games are dealt with, split between the batches.
+     * @return the added up results of all the games
+     */
+    public static Results simulate(int games, Strategy[] strategies, Scoring scoring, SplittableGenerator random) {
+        return ForkJoinPool.commonPool().invoke(new Batch(games, strategies, scoring, random));
+    }
+
+    /**
+     * @param seed the seed, or null for unpredictable games.
+     * @return a new generator of the Dealer's algorithm
+     * @throws IllegalArgumentException if the algorithm isn't splittable
+     */
+    private static SplittableGenerator createGenerator(Long seed) {
+        RandomGeneratorFactory<SplittableGenerator> factory = RandomGeneratorFactory.of(Dealer.DEFAULT_ALGORITHM);
+        if (!factory.isSplittable()) {
+            throw new IllegalArgumentException(Dealer.DEFAULT_ALGORITHM + " is not a splittable generator");
+        }
+        return seed == null ? factory.create() : factory.create(seed);
+    }
+
+    private static Strategy[] parseStrategies(String names) {
+        String[] split = names.split(",");
+        Strategy[] strategies = new Strategy[SimulatedGame.PLAYERS];
+        for (int seat = 0; seat < strategies.length; seat++) {
+            strategies[seat] = Strategy.named(split.length == 1 ? split[0] : split[seat]);
+        }
+        return strategies;
+    }
+
+    /**
+     * The results of many games, added up.
+     */
+    public static class Results {
+        private long games;
+        private final long[] wins = new long[SimulatedGame.PLAYERS];
+        private final long[] points = new long[SimulatedGame.PLAYERS];
+
+        void add(SimulatedGame game) {
+            games++;
+            wins[game.getWinner()]++;
+            for (int seat = 0; seat < SimulatedGame.PLAYERS; seat++) {
+                points[seat] += game.getPoints(seat);
+            }
+        }
+
+        void add(Results other) {
+            games += other.games;
+            for (int seat = 0; seat < SimulatedGame.PLAYERS; seat++) {
+                wins[seat] += other.wins[seat];
+                points[seat] += other.points[seat];
+            }
+        }
+
+        public long getGames() {
+            return games;
+        }
+
+        public long getWins(int seat) {
+            return wins[seat];
+        }
+
+        public long getPoints(int seat) {
+            return points[seat];
+        }
+    }
+
+    /**
+     * Plays its games on the current thread if there are few enough, and otherwise splits them in halves.
+     */
+    private static class Batch extends RecursiveTask<Results> {
+        private final int games;
+        private final Strategy[] strategies;
+        private final Scoring scoring;
+        private final SplittableGenerator random;
+
+        Batch(int games, Strategy[] strategies, Scoring scoring, SplittableGenerator random) {
+            this.games = games;
+            this.strategies = strategies;
+            this.scoring = scoring;
+            this.random = random;
+        }
+
+        @Override
+        protected Results compute() {
+            if (games <= BATCH_SIZE) {
+                Results results = new Results();
+                for (int i = 0; i < games; i++) {
+                    SimulatedGame game = new SimulatedGame(scoring);
+                    game.playGame(strategies, random);
+                    results.add(game);
+                }
+                return results;
+            }
+
+            Batch left = new Batch(games / 2, strategies, scoring, random.split());
+            Batch right = new Batch(games - games / 2, strategies, scoring, random);
+            left.fork();
+            Results results = right.compute();
+            results.add(left.join());
+            return results;
+        }
+    }
+}
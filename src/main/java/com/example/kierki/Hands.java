@@ -0,0 +1,54 @@
+package com.example.kierki;
+
+/**
+ * Utility class for hands stored as bitboards.
+ * <p>
+ *     A hand is a single long, where bit number Card.toByte() is set when the card is in the hand.
+ *     Every suit thus takes 13 consecutive bits, ordered by value, so checking whether a player can follow
+ *     suit, or has nothing but hearts left, is a single mask operation, and never allocates.
+ * </p>
+ */
+public final class Hands {
+    public static final long EMPTY = 0L;
+    public static final long FULL_DECK = (1L << Card.CARDS_IN_DECK) - 1;
+    private static final long SUIT_BITS = (1L << Card.CARDS_IN_SUIT) - 1;
+
+    private Hands() {
+    }
+
+    /**
+     * @param card a card.
+     * @return the hand holding nothing but the card
+     */
+    public static long bit(Card card) {
+        return 1L << card.toByte();
+    }
+
+    /**
+     * @param suit a suit.
+     * @return the hand holding every card of the suit
+     */
+    public static long suitMask(Suit suit) {
+        return SUIT_BITS << (suit.ordinal() * Card.CARDS_IN_SUIT);
+    }
+
+    public static boolean contains(long hand, Card card) {
+        return (hand & bit(card)) != 0;
+    }
+
+    public static boolean hasSuit(long hand, Suit suit) {
+        return (hand & suitMask(suit)) != 0;
+    }
+
+    /**
+     * @param hand a hand.
+     * @return true if the hand isn't empty, and all its cards are hearts
+     */
+    public static boolean onlyHearts(long hand) {
+        return hand != EMPTY && (hand & ~suitMask(Suit.HEART)) == 0;
+    }
+
+    public static int size(long hand) {
+        return Long.bitCount(hand);
+    }
+}
@@ -24,10 +24,9 @@ public class HeartsApp extends Application {
      * giving them access to the Client class, and shows the user the login window.
      * @param primaryStage the main window of the application
      * @throws IOException in/out communication exception
-     * @throws ClassNotFoundException if the class can't be identified after deserialization
      */
     @Override
-    public void start(Stage primaryStage) throws IOException, ClassNotFoundException {
+    public void start(Stage primaryStage) throws IOException {
         FXMLLoader usernameLoader = new FXMLLoader(getClass().getResource("username.fxml"));
         Scene usernameScene = new Scene(usernameLoader.load());
         UsernameController usernameController = usernameLoader.getController();
@@ -0,0 +1,18 @@
+package com.example.kierki;
+
+/**
+ * The attributes of a LatencyHistogram shown through JMX, all the latencies in nanoseconds.
+ */
+public interface LatencyHistogramMBean {
+    long getCount();
+
+    double getMean();
+
+    long getMax();
+
+    long getP50();
+
+    long getP99();
+
+    long getP999();
+}
@@ -0,0 +1,146 @@
+package com.example.kierki;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The LobbyPublisher keeps the clients in the lobby up to date with the list of open rooms.
+ * <p>
+ *     Instead of broadcasting every room creation or join the moment it happens, changes are gathered,
+ *     and published on a tick as a single LOBBY_UPDATE: the summaries of the rooms added or changed since
+ *     the last tick, followed by the IDs of the rooms removed. A burst of activity thus costs every client
+ *     one message per tick, rather than one message per change. A room changed several times during a
+ *     tick is only sent once, in its latest state.
+ * </p>
+ * <p>
+ *     The tick can be changed with the kierki.lobbyTickMillis system property, and defaults to 100 ms.
+ *     Clients who can't keep up miss the update, see OverflowPolicy.DROP.
+ * </p>
+ * <p>
+ *     The publisher also keeps the latest summary of every open room, which lobby pages are chosen from,
+ *     so that browsing the lobby never touches a Room while its worker thread is changing it.
+ * </p>
+ */
+public class LobbyPublisher {
+    public static final long DEFAULT_TICK_MILLIS = Long.getLong("kierki.lobbyTickMillis", 100);
+    private final Set<ClientHandler> subscribers = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, RoomSummary> openRooms = new ConcurrentHashMap<>();
+    private final ReentrantLock pendingLock = new ReentrantLock();
+    private Map<Integer, RoomSummary> changedRooms = new HashMap<>();
+    private Set<Integer> removedRooms = new HashSet<>();
+
+    public LobbyPublisher() {
+        this(DEFAULT_TICK_MILLIS);
+    }
+
+    /**
+     * The class constructor. Starts the daemon thread publishing the changes.
+     * @param tickMillis how often the gathered changes are published, in milliseconds.
+     */
+    public LobbyPublisher(long tickMillis) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lobby-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::publish, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts sending lobby updates to a client, after they logged in.
+     * @param handler the client's ClientHandler.
+     */
+    public void subscribe(ClientHandler handler) {
+        subscribers.add(handler);
+    }
+
+    public void unsubscribe(ClientHandler handler) {
+        subscribers.remove(handler);
+    }
+
+    /**
+     * Marks a room as created, or changed, since the last tick.
+     * @param room the room, summarized right away, since it may change again before the tick.
+     */
+    public void roomChanged(Room room) {
+        RoomSummary summary = RoomSummary.of(room);
+        openRooms.put(summary.getRoomId(), summary);
+        pendingLock.lock();
+        try {
+            changedRooms.put(summary.getRoomId(), summary);
+            removedRooms.remove(summary.getRoomId());
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    /**
+     * Marks a room as removed from the lobby since the last tick, either because its game ended, or it was closed.
+     * @param roomId the ID of the removed room.
+     */
+    public void roomRemoved(int roomId) {
+        openRooms.remove(roomId);
+        pendingLock.lock();
+        try {
+            changedRooms.remove(roomId);
+            removedRooms.add(roomId);
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    /**
+     * @return the latest summaries of all the open rooms
+     */
+    public Collection<RoomSummary> getOpenRooms() {
+        return openRooms.values();
+    }
+
+    /**
+     * Sends the changes gathered since the last tick to every subscriber, if there were any.
+     * The message is encoded once, and shared by all the subscribers.
+     */
+    private void publish() {
+        Map<Integer, RoomSummary> changed;
+        Set<Integer> removed;
+        pendingLock.lock();
+        try {
+            if (changedRooms.isEmpty() && removedRooms.isEmpty()) return;
+            changed = changedRooms;
+            removed = removedRooms;
+            changedRooms = new HashMap<>();
+            removedRooms = new HashSet<>();
+        } finally {
+            pendingLock.unlock();
+        }
+
+        MessageWriter update = new MessageWriter().writeResponse(Response.LOBBY_UPDATE).writeInt(changed.size());
+        for (RoomSummary summary : changed.values()) {
+            update.writeRoomSummary(summary);
+        }
+        update.writeInt(removed.size());
+        for (Integer roomId : removed) {
+            update.writeInt(roomId);
+        }
+        byte[] message = update.toByteArray();
+
+        long start = System.nanoTime();
+        for (ClientHandler handler : subscribers) {
+            try {
+                handler.send(message, OverflowPolicy.DROP);
+            } catch (IOException e) {
+                handler.closeEverything(); //also unsubscribes it, which the concurrent set allows during iteration
+            }
+        }
+        ServerMetrics.INSTANCE.getFanOut().record(System.nanoTime() - start);
+    }
+}
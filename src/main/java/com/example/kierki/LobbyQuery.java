@@ -0,0 +1,102 @@
+package com.example.kierki;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The LobbyQuery class describes which page of the open rooms a client wants to see.
+ * <p>
+ *     A client can ask for joinable rooms only, and have the rooms sorted by the amount of free seats,
+ *     so that the rooms closest to starting a game come first. Otherwise rooms are sorted by their IDs.
+ * </p>
+ * <p>
+ *     Pages are chosen with a cursor, that is the last room of the previous page, rather than an offset,
+ *     so that rooms created or removed in the meantime don't shift the next page. A page is picked from
+ *     the open rooms with a bounded heap of the page's size, so a page costs a single pass over the rooms,
+ *     and only the rooms on the page get sorted.
+ * </p>
+ */
+public class LobbyQuery {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    private static final Comparator<RoomSummary> BY_ID = Comparator.comparingInt(RoomSummary::getRoomId);
+    private static final Comparator<RoomSummary> BY_FREE_SEATS = Comparator.comparingInt(RoomSummary::getFreeSeats).thenComparing(BY_ID);
+
+    private final boolean joinableOnly;
+    private final boolean sortByFreeSeats;
+    private final int pageSize;
+    private final int afterRoomId; //the cursor, 0 for the first page
+    private final int afterFreeSeats;
+
+    public LobbyQuery(boolean joinableOnly, boolean sortByFreeSeats, int pageSize, int afterRoomId, int afterFreeSeats) {
+        this.joinableOnly = joinableOnly;
+        this.sortByFreeSeats = sortByFreeSeats;
+        this.pageSize = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        this.afterRoomId = afterRoomId;
+        this.afterFreeSeats = afterFreeSeats;
+    }
+
+    /**
+     * @return the query sent right after logging in: the first page of joinable rooms, fullest first
+     */
+    public static LobbyQuery firstPage() {
+        return new LobbyQuery(true, true, DEFAULT_PAGE_SIZE, 0, 0);
+    }
+
+    /**
+     * Creates the query for the page following the given room.
+     * @param last the last room of the current page.
+     * @return the query for the next page
+     */
+    public LobbyQuery after(RoomSummary last) {
+        return new LobbyQuery(joinableOnly, sortByFreeSeats, pageSize, last.getRoomId(), last.getFreeSeats());
+    }
+
+    /**
+     * Chooses the rooms on the page. One room more than the page size is returned, if there is one,
+     * so that the caller knows whether another page follows.
+     * @param rooms the summaries of all the open rooms.
+     * @return the summaries of the rooms on the page, and possibly the first room of the next one
+     */
+    public List<RoomSummary> select(Collection<RoomSummary> rooms) {
+        Comparator<RoomSummary> order = sortByFreeSeats ? BY_FREE_SEATS : BY_ID;
+        RoomSummary cursor = afterRoomId == 0 ? null : new RoomSummary(afterRoomId, null, 4 - afterFreeSeats);
+        int limit = pageSize + 1;
+        PriorityQueue<RoomSummary> page = new PriorityQueue<>(limit, order.reversed()); //the last room of the page on top
+
+        for (RoomSummary summary : rooms) {
+            if (joinableOnly && summary.getFreeSeats() == 0) continue;
+            if (cursor != null && order.compare(summary, cursor) <= 0) continue;
+
+            if (page.size() < limit) {
+                page.add(summary);
+            } else if (order.compare(summary, page.peek()) < 0) {
+                page.poll();
+                page.add(summary);
+            }
+        }
+
+        List<RoomSummary> selected = new ArrayList<>(page);
+        selected.sort(order);
+        return selected;
+    }
+
+    public boolean isJoinableOnly() {
+        return joinableOnly;
+    }
+    public boolean isSortByFreeSeats() {
+        return sortByFreeSeats;
+    }
+    public int getPageSize() {
+        return pageSize;
+    }
+    public int getAfterRoomId() {
+        return afterRoomId;
+    }
+    public int getAfterFreeSeats() {
+        return afterFreeSeats;
+    }
+}
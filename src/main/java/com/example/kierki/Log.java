@@ -0,0 +1,198 @@
+package com.example.kierki;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * The server's log: leveled, and written out on its own thread, so logging never blocks the thread handling a request.
+ * <p>
+ *     Messages below the level in the kierki.logLevel property (DEBUG, INFO, WARN, ERROR or OFF, INFO by default)
+ *     are thrown away before they're built. Every level's switch is a constant once the class is loaded,
+ *     so the JIT compiles a disabled statement down to nothing, and the Supplier building its message is never
+ *     called. Statements on the hot paths, like every played card, are DEBUG, and build their message with a Supplier.
+ * </p>
+ * <p>
+ *     An enabled message is built on the calling thread, and put in a lock-free ring buffer of kierki.logBuffer
+ *     entries (8192 by default). A single daemon thread formats the messages, and writes them to the standard
+ *     output in batches. If the buffer is full, the message is dropped rather than waited for, and the amount
+ *     of dropped messages is logged once the writer catches up.
+ * </p>
+ */
+public final class Log {
+    public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    public static final Level LEVEL = Level.valueOf(System.getProperty("kierki.logLevel", "INFO").toUpperCase(Locale.ROOT));
+    private static final boolean DEBUG = LEVEL.compareTo(Level.DEBUG) <= 0;
+    private static final boolean INFO = LEVEL.compareTo(Level.INFO) <= 0;
+    private static final boolean WARN = LEVEL.compareTo(Level.WARN) <= 0;
+    private static final boolean ERROR = LEVEL.compareTo(Level.ERROR) <= 0;
+
+    private static final int CAPACITY = Integer.highestOneBit(Math.max(2, Integer.getInteger("kierki.logBuffer", 8192) - 1)) << 1;
+    private static final int MASK = CAPACITY - 1;
+    private static final int BATCH_SIZE = 16 * 1024; //characters written to the output at once
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private static final AtomicReferenceArray<Entry> slots = new AtomicReferenceArray<>(CAPACITY);
+    private static final AtomicLong tail = new AtomicLong(); //the next sequence a logging thread claims
+    private static volatile long head; //the next sequence the writer reads, only the writer moves it
+    private static final LongAdder dropped = new LongAdder();
+    private static volatile boolean writerWaiting = false;
+    private static volatile boolean closing = false;
+    private static final Thread writer = new Thread(Log::write, "log-writer");
+
+    static {
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            closing = true;
+            LockSupport.unpark(writer);
+            try {
+                writer.join(1000);
+            } catch (InterruptedException ignored) {
+            }
+        }, "log-flush"));
+    }
+
+    private Log() {
+    }
+
+    public static boolean isDebugEnabled() {
+        return DEBUG;
+    }
+
+    /**
+     * Logs a DEBUG message, the level for anything logged on every move.
+     * @param message builds the message, only called if DEBUG is enabled.
+     */
+    public static void debug(Supplier<String> message) {
+        if (DEBUG) append(Level.DEBUG, message.get(), null);
+    }
+
+    /**
+     * @param message builds the message, only called if DEBUG is enabled.
+     * @param error the exception, whose stack trace is logged after the message.
+     */
+    public static void debug(Supplier<String> message, Throwable error) {
+        if (DEBUG) append(Level.DEBUG, message.get(), error);
+    }
+
+    public static void info(String message) {
+        if (INFO) append(Level.INFO, message, null);
+    }
+
+    /**
+     * @param message builds the message, only called if INFO is enabled.
+     */
+    public static void info(Supplier<String> message) {
+        if (INFO) append(Level.INFO, message.get(), null);
+    }
+
+    public static void warn(String message) {
+        if (WARN) append(Level.WARN, message, null);
+    }
+
+    /**
+     * @param message the message.
+     * @param error the exception, whose stack trace is logged after the message.
+     */
+    public static void error(String message, Throwable error) {
+        if (ERROR) append(Level.ERROR, message, error);
+    }
+
+    /**
+     * Claims the next slot of the ring buffer, unless the writer is a whole buffer behind, and wakes the writer
+     * up if it's waiting. Never blocks.
+     */
+    private static void append(Level level, String message, Throwable error) {
+        Entry entry = new Entry(System.currentTimeMillis(), level, Thread.currentThread().getName(), message, error);
+        while (true) {
+            long sequence = tail.get();
+            if (sequence - head >= CAPACITY) {
+                dropped.increment();
+                return;
+            }
+            if (tail.compareAndSet(sequence, sequence + 1)) {
+                slots.set((int) sequence & MASK, entry);
+                break;
+            }
+        }
+        if (writerWaiting) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * The writer thread's loop: takes the entries in order, and parks once there are none left.
+     * A slot which was claimed, but isn't filled in yet, counts as empty until the logging thread fills it in.
+     */
+    private static void write() {
+        StringBuilder batch = new StringBuilder(BATCH_SIZE);
+        while (true) {
+            long sequence = head;
+            Entry entry;
+            while ((entry = slots.get((int) sequence & MASK)) != null) {
+                slots.set((int) sequence & MASK, null);
+                head = ++sequence;
+                entry.format(batch);
+                if (batch.length() >= BATCH_SIZE) flush(batch);
+            }
+
+            long lost = dropped.sumThenReset();
+            if (lost > 0) {
+                new Entry(System.currentTimeMillis(), Level.WARN, writer.getName(),
+                        "Dropped " + lost + " log messages, the buffer was full", null).format(batch);
+            }
+            flush(batch);
+            if (closing) return;
+
+            writerWaiting = true;
+            //a message appended after the last read, but before the flag was set, would never wake the writer up
+            if (slots.get((int) head & MASK) == null && !closing) {
+                LockSupport.park();
+            }
+            writerWaiting = false;
+        }
+    }
+
+    private static void flush(StringBuilder batch) {
+        if (batch.length() == 0) return;
+        System.out.print(batch);
+        System.out.flush();
+        batch.setLength(0);
+    }
+
+    private static class Entry {
+        private final long time;
+        private final Level level;
+        private final String thread;
+        private final String message;
+        private final Throwable error;
+
+        Entry(long time, Level level, String thread, String message, Throwable error) {
+            this.time = time;
+            this.level = level;
+            this.thread = thread;
+            this.message = message;
+            this.error = error;
+        }
+
+        void format(StringBuilder out) {
+            TIME.formatTo(Instant.ofEpochMilli(time), out);
+            out.append(' ').append(level).append(" [").append(thread).append("] ").append(message).append(System.lineSeparator());
+            if (error != null) {
+                StringWriter trace = new StringWriter();
+                error.printStackTrace(new PrintWriter(trace));
+                out.append(trace);
+            }
+        }
+    }
+}
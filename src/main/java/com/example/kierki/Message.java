@@ -0,0 +1,109 @@
+package com.example.kierki;
+
+import java.io.*;
+import java.util.List;
+
+/**
+ * Utility class used to send and receive the messages exchanged between the Client and the ClientHandler.
+ * <p>
+ *     Every message travels as a frame: a four byte length, followed by the payload. The payload holds the
+ *     Request or Response and all of its arguments, built with a MessageWriter and decoded with a MessageReader,
+ *     so a frame can be decoded on its own, no matter which thread or event loop received it.
+ * </p>
+ */
+public final class Message {
+    public static final int HEADER_SIZE = 4;
+    public static final int MAX_FRAME_SIZE = 1 << 20;
+
+    private Message() {
+    }
+
+    /**
+     * Writes a whole frame, that is the length header and the payload, and flushes the stream.
+     * @param out the stream connected to the other side.
+     * @param payload the payload of the message.
+     * @throws IOException in/out communication exception
+     */
+    public static void writeFrame(OutputStream out, byte[] payload) throws IOException {
+        out.write(frame(payload));
+        out.flush();
+    }
+
+    /**
+     * Blocks until a whole frame has been received.
+     * @param in the stream connected to the other side.
+     * @return the payload of the received frame.
+     * @throws IOException in/out communication exception, or if the frame's length is invalid
+     */
+    public static byte[] readFrame(DataInputStream in) throws IOException {
+        byte[] header = new byte[HEADER_SIZE];
+        in.readFully(header); //a single read, where readInt() would read the socket byte by byte
+        int length = ((header[0] & 0xFF) << 24) | ((header[1] & 0xFF) << 16) | ((header[2] & 0xFF) << 8) | (header[3] & 0xFF);
+        checkLength(length);
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return payload;
+    }
+
+    /**
+     * Prepends the length header to a payload.
+     * @param payload the payload of the message.
+     * @return the frame, ready to be written to a socket.
+     * @throws IOException if the payload is too large to be sent
+     */
+    public static byte[] frame(byte[] payload) throws IOException {
+        checkLength(payload.length);
+        byte[] frame = new byte[HEADER_SIZE + payload.length];
+        putFrame(frame, 0, payload);
+        return frame;
+    }
+
+    /**
+     * Frames several payloads into a single buffer, so that they can be written to the socket at once.
+     * @param payloads the payloads of the messages, in the order they should be received.
+     * @return the frames, one after another.
+     * @throws IOException if any of the payloads is too large to be sent
+     */
+    public static byte[] frame(List<byte[]> payloads) throws IOException {
+        int size = 0;
+        for (byte[] payload : payloads) {
+            checkLength(payload.length);
+            size += HEADER_SIZE + payload.length;
+        }
+
+        byte[] frames = new byte[size];
+        int offset = 0;
+        for (byte[] payload : payloads) {
+            offset = putFrame(frames, offset, payload);
+        }
+        return frames;
+    }
+
+    /**
+     * Writes the length header, followed by the payload, into a buffer.
+     * @param buffer the buffer, with room for the whole frame.
+     * @param offset where the frame starts in the buffer.
+     * @param payload the payload of the message.
+     * @return the offset right after the frame
+     */
+    private static int putFrame(byte[] buffer, int offset, byte[] payload) {
+        buffer[offset] = (byte) (payload.length >>> 24);
+        buffer[offset + 1] = (byte) (payload.length >>> 16);
+        buffer[offset + 2] = (byte) (payload.length >>> 8);
+        buffer[offset + 3] = (byte) payload.length;
+        System.arraycopy(payload, 0, buffer, offset + HEADER_SIZE, payload.length);
+        return offset + HEADER_SIZE + payload.length;
+    }
+
+    /**
+     * Makes sure a frame's length is sane, so that a broken or malicious peer can't make us allocate
+     * arbitrary amounts of memory.
+     * @param length the length read from, or about to be written to, the header.
+     * @throws IOException if the length is negative or too large
+     */
+    public static void checkLength(int length) throws IOException {
+        if (length < 0 || length > MAX_FRAME_SIZE) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.kierki;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the fields of a single received message, in the order they were written by a MessageWriter.
+ * <p>
+ *     A message that ends too early, or holds an unknown opcode or card, is reported as an IOException,
+ *     just like any other broken connection.
+ * </p>
+ */
+public class MessageReader {
+    private static final Request[] REQUESTS = Request.values();
+    private static final Response[] RESPONSES = Response.values();
+    private final ByteBuffer buffer;
+
+    /**
+     * The class constructor.
+     * @param payload the payload of a received frame.
+     */
+    public MessageReader(byte[] payload) {
+        this.buffer = ByteBuffer.wrap(payload);
+    }
+
+    public Request readRequest() throws IOException {
+        int opcode = readUnsignedByte();
+        if (opcode >= REQUESTS.length) {
+            throw new IOException("Unknown request: " + opcode);
+        }
+        return REQUESTS[opcode];
+    }
+
+    public Response readResponse() throws IOException {
+        int opcode = readUnsignedByte();
+        if (opcode >= RESPONSES.length) {
+            throw new IOException("Unknown response: " + opcode);
+        }
+        return RESPONSES[opcode];
+    }
+
+    public int readUnsignedByte() throws IOException {
+        try {
+            return buffer.get() & 0xFF;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Message too short", e);
+        }
+    }
+
+    public boolean readBoolean() throws IOException {
+        return readUnsignedByte() != 0;
+    }
+
+    public int readInt() throws IOException {
+        try {
+            return buffer.getInt();
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Message too short", e);
+        }
+    }
+
+    public String readString() throws IOException {
+        int length = (readUnsignedByte() << 8) | readUnsignedByte();
+        if (buffer.remaining() < length) {
+            throw new IOException("Message too short");
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /**
+     * Reads a card sent as a single byte, see Card.toByte().
+     * @return the card.
+     * @throws IOException if the byte doesn't represent a card
+     */
+    public Card readCard() throws IOException {
+        int index = readUnsignedByte();
+        if (index >= Card.CARDS_IN_DECK) {
+            throw new IOException("Unknown card: " + index);
+        }
+        return Card.fromByte(index);
+    }
+
+    public Room readRoom() throws IOException {
+        return Room.readFrom(this);
+    }
+
+    public RoomSummary readRoomSummary() throws IOException {
+        int roomId = readInt();
+        String hostName = readString();
+        return new RoomSummary(roomId, hostName, readUnsignedByte());
+    }
+
+    public LobbyQuery readLobbyQuery() throws IOException {
+        boolean joinableOnly = readBoolean();
+        boolean sortByFreeSeats = readBoolean();
+        int pageSize = readUnsignedByte();
+        int afterRoomId = readInt();
+        return new LobbyQuery(joinableOnly, sortByFreeSeats, pageSize, afterRoomId, readUnsignedByte());
+    }
+
+    public Invitation readInvitation() throws IOException {
+        int roomId = readInt();
+        return new Invitation(roomId, readString());
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.kierki;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Builds the payload of a single message, in the compact binary format shared by the Client and the ClientHandler.
+ * <p>
+ *     A message starts with a one byte opcode, the ordinal of its Request or Response, followed by its arguments
+ *     in a fixed order: ints take four bytes, cards a single byte, and strings are sent as UTF-8 with a two byte
+ *     length. Nothing is serialized through reflection, so a message costs exactly as many bytes as its fields.
+ * </p>
+ */
+public class MessageWriter {
+    private byte[] buffer;
+    private int size = 0;
+
+    public MessageWriter() {
+        this.buffer = new byte[64];
+    }
+
+    public MessageWriter writeRequest(Request request) {
+        return writeByte(request.ordinal());
+    }
+
+    public MessageWriter writeResponse(Response response) {
+        return writeByte(response.ordinal());
+    }
+
+    public MessageWriter writeByte(int value) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) value;
+        return this;
+    }
+
+    public MessageWriter writeBoolean(boolean value) {
+        return writeByte(value ? 1 : 0);
+    }
+
+    public MessageWriter writeInt(int value) {
+        ensureCapacity(4);
+        buffer[size++] = (byte) (value >>> 24);
+        buffer[size++] = (byte) (value >>> 16);
+        buffer[size++] = (byte) (value >>> 8);
+        buffer[size++] = (byte) value;
+        return this;
+    }
+
+    /**
+     * Writes a string as UTF-8, preceded by its length in bytes.
+     * @param value the string, at most 65535 bytes long once encoded.
+     * @return this writer.
+     */
+    public MessageWriter writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("String too long: " + bytes.length + " bytes");
+        }
+        ensureCapacity(2 + bytes.length);
+        buffer[size++] = (byte) (bytes.length >>> 8);
+        buffer[size++] = (byte) bytes.length;
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+        return this;
+    }
+
+    /**
+     * Writes a card as a single byte, see Card.toByte().
+     * @param card the card being sent.
+     * @return this writer.
+     */
+    public MessageWriter writeCard(Card card) {
+        return writeByte(card.toByte());
+    }
+
+    public MessageWriter writeRoom(Room room) {
+        room.writeTo(this);
+        return this;
+    }
+
+    public MessageWriter writeRoomSummary(RoomSummary summary) {
+        writeInt(summary.getRoomId());
+        writeString(summary.getHostName());
+        return writeByte(summary.getPlayerAmount());
+    }
+
+    public MessageWriter writeLobbyQuery(LobbyQuery query) {
+        writeBoolean(query.isJoinableOnly());
+        writeBoolean(query.isSortByFreeSeats());
+        writeByte(query.getPageSize());
+        writeInt(query.getAfterRoomId());
+        return writeByte(query.getAfterFreeSeats());
+    }
+
+    public MessageWriter writeInvitation(Invitation invitation) {
+        writeInt(invitation.getRoomId());
+        return writeString(invitation.getInviterName());
+    }
+
+    /**
+     * @return the finished payload, ready to be sent.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+}
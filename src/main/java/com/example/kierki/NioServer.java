@@ -0,0 +1,177 @@
+package com.example.kierki;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A non-blocking alternative to the Server class.
+ * <p>
+ *     Instead of starting a thread for every client, the NioServer accepts clients on a single thread,
+ *     and spreads them over a small, fixed number of event loops. Each event loop drives many
+ *     non-blocking SocketChannels with one Selector, and passes every decoded message to the client's
+ *     ClientHandler, which runs exactly the same logic as in the blocking server.
+ * </p>
+ */
+public class NioServer {
+    private final ServerSocketChannel serverChannel;
+    private final EventLoop[] eventLoops;
+    private int clientIds = 1;
+
+    /**
+     * The class constructor.
+     * @param port the port the server listens on.
+     * @param eventLoopCount the amount of event loop threads serving the clients.
+     * @throws IOException if the port can't be bound, or a selector can't be opened
+     */
+    public NioServer(int port, int eventLoopCount) throws IOException {
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(port));
+
+        this.eventLoops = new EventLoop[eventLoopCount];
+        for (int i = 0; i < eventLoopCount; i++) {
+            eventLoops[i] = new EventLoop();
+        }
+    }
+
+    /**
+     * Starts the event loops, and then keeps accepting new clients, handing them to the event loops in turns.
+     */
+    public void startServer() {
+        Log.info("NIO server is running with " + eventLoops.length + " event loops...");
+        for (int i = 0; i < eventLoops.length; i++) {
+            Thread thread = new Thread(eventLoops[i], "event-loop-" + i);
+            thread.start();
+        }
+
+        try {
+            while (serverChannel.isOpen()) {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                Log.debug(() -> "Client connected");
+
+                eventLoops[clientIds % eventLoops.length].register(channel, clientIds);
+                clientIds++;
+            }
+        } catch (IOException e) {
+            closeServerChannel();
+        }
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Shuts down the server.
+     */
+    public void closeServerChannel() {
+        try {
+            serverChannel.close();
+            for (EventLoop eventLoop : eventLoops) {
+                eventLoop.selector.close();
+            }
+        } catch (IOException e) {
+            Log.error("Couldn't close the server channel", e);
+        }
+    }
+
+    /**
+     * A single thread, serving all the channels registered with its selector.
+     */
+    private static class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<ClientRegistration> registrations = new ConcurrentLinkedQueue<>();
+
+        EventLoop() throws IOException {
+            this.selector = Selector.open();
+        }
+
+        /**
+         * Hands a newly accepted channel over to this event loop. The channel is registered
+         * by the event loop's own thread, the next time it wakes up.
+         * @param channel the accepted channel.
+         * @param clientId a unique ID given by the server.
+         */
+        void register(SocketChannel channel, int clientId) {
+            registrations.add(new ClientRegistration(channel, clientId));
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (selector.isOpen()) {
+                try {
+                    selector.select();
+                    registerPending();
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        handleKey(key);
+                    }
+                } catch (Exception e) {
+                    Log.error("The event loop failed", e);
+                }
+            }
+        }
+
+        /**
+         * Registers the channels accepted since the last wake up, and greets their clients with their IDs.
+         */
+        private void registerPending() {
+            ClientRegistration registration;
+            while ((registration = registrations.poll()) != null) {
+                try {
+                    SelectionKey key = registration.channel.register(selector, SelectionKey.OP_READ);
+                    ChannelConnection connection = new ChannelConnection(registration.channel, key);
+                    ClientHandler clientHandler = new ClientHandler(connection, registration.clientId);
+                    connection.setHandler(clientHandler);
+                    key.attach(connection);
+
+                    clientHandler.sendClientId();
+                } catch (IOException e) {
+                    Log.error("Couldn't register client: " + registration.clientId, e);
+                }
+            }
+        }
+
+        /**
+         * Reads from, or writes to, a ready channel. Any failure severs the client's connection.
+         * @param key the ready channel's key.
+         */
+        private void handleKey(SelectionKey key) {
+            ChannelConnection connection = (ChannelConnection) key.attachment();
+            try {
+                if (key.isValid() && key.isReadable()) {
+                    connection.read();
+                }
+                if (key.isValid() && key.isWritable()) {
+                    connection.write();
+                }
+            } catch (Exception e) {
+                connection.getHandler().closeEverything();
+            }
+        }
+    }
+
+    /**
+     * A channel waiting to be registered with an event loop.
+     */
+    private static class ClientRegistration {
+        private final SocketChannel channel;
+        private final int clientId;
+
+        ClientRegistration(SocketChannel channel, int clientId) {
+            this.channel = channel;
+            this.clientId = clientId;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.kierki;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded queue of messages waiting to be written to a single client.
+ * <p>
+ *     Senders only ever add messages to the queue, so a client with a full TCP send buffer can't stall
+ *     the thread of the player who made a move, or the rest of the room. The connection's writer takes all
+ *     the queued messages at once, and writes them out together.
+ * </p>
+ * <p>
+ *     The capacity can be changed with the kierki.outboundCapacity system property. The queue keeps track of
+ *     its highest depth, and all queues together count the messages dropped and the clients disconnected
+ *     because their queue was full.
+ * </p>
+ */
+public class OutboundQueue {
+    public static final int DEFAULT_CAPACITY = Integer.getInteger("kierki.outboundCapacity", 1024);
+    private static final AtomicInteger highestDepth = new AtomicInteger();
+    private static final AtomicLong droppedMessages = new AtomicLong();
+    private static final AtomicLong overflowDisconnects = new AtomicLong();
+    private final BlockingQueue<byte[]> messages;
+    private final AtomicInteger maxDepth = new AtomicInteger();
+
+    public OutboundQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * The class constructor.
+     * @param capacity the maximum amount of messages waiting to be written.
+     */
+    public OutboundQueue(int capacity) {
+        this.messages = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Adds a message to the queue, unless it's full.
+     * @param message the payload of the message, built with a MessageWriter.
+     * @param policy what to do if the queue is full.
+     * @return true if the message was queued, false if it was dropped
+     * @throws QueueOverflowException if the queue is full, and the policy is DISCONNECT
+     */
+    public boolean offer(byte[] message, OverflowPolicy policy) throws QueueOverflowException {
+        if (!messages.offer(message)) {
+            if (policy == OverflowPolicy.DROP) {
+                droppedMessages.incrementAndGet();
+                return false;
+            }
+            overflowDisconnects.incrementAndGet();
+            throw new QueueOverflowException(messages.size());
+        }
+
+        int depth = messages.size();
+        maxDepth.accumulateAndGet(depth, Math::max);
+        highestDepth.accumulateAndGet(depth, Math::max);
+        return true;
+    }
+
+    /**
+     * Moves all the queued messages to the given list, in the order they were queued.
+     * @param batch the list receiving the messages.
+     * @return the amount of messages moved
+     */
+    public int drainTo(List<byte[]> batch) {
+        return messages.drainTo(batch);
+    }
+
+    public boolean isEmpty() {
+        return messages.isEmpty();
+    }
+
+    public int getDepth() {
+        return messages.size();
+    }
+
+    public int getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    public static int getHighestDepth() {
+        return highestDepth.get();
+    }
+
+    public static long getDroppedMessages() {
+        return droppedMessages.get();
+    }
+
+    public static long getOverflowDisconnects() {
+        return overflowDisconnects.get();
+    }
+
+    /**
+     * Thrown when a message can't be queued for a client, who therefore has to be disconnected.
+     */
+    public static class QueueOverflowException extends IOException {
+        public QueueOverflowException(int depth) {
+            super("Outbound queue full, " + depth + " messages waiting");
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.kierki;
+
+/**
+ * Decides what happens to a message sent to a client whose outbound queue is full, which means
+ * the client stopped reading, or reads slower than the server produces messages for it.
+ */
+public enum OverflowPolicy {
+    /**
+     * The message is dropped. Used for room list updates, since missing one only leaves a lobby
+     * slightly out of date.
+     */
+    DROP,
+    /**
+     * The client is disconnected. Used for game updates, since a player who misses one can't keep playing.
+     */
+    DISCONNECT
+}
@@ -11,5 +11,8 @@ public enum Request {
     DEAL_CARDS,
     PLAY_CARD,
     EXIT_GAME,
-    DISCONNECT
+    DISCONNECT,
+    SYNC_ROOM,
+    QUERY_LOBBY,
+    ADD_BOT
 }
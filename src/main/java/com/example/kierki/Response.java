@@ -14,5 +14,9 @@ public enum Response {
     CARDS_UPDATE,
     TURN_OVER,
     ROUND_OVER,
-    GAME_OVER
+    GAME_OVER,
+    ROOM_SNAPSHOT,
+    LOBBY_PAGE,
+    LOBBY_UPDATE,
+    ROOM_CLOSED
 }
@@ -1,9 +1,14 @@
 package com.example.kierki;
 
-import java.io.Serializable;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.random.RandomGenerator;
 
 /**
  * The Room class holds most of the information about an ongoing game and its players.
@@ -13,13 +18,32 @@ import java.util.List;
  *     values are the amounts of points they currently have.
  * </p>
  * <p>
- *     The Room class is also responsible for initializing and storing the deck of cards used in throughout
- *     the game, and various information ion the current state of the game, like whose turn is is to play
- *     a card, how many turns have passed, which round it is, and what card was the first one placed on the
- *     table.
+ *     The Room class also stores various information ion the current state of the game, like whose turn is is
+ *     to play a card, how many turns have passed, which round it is, and what card was the first one placed
+ *     on the table. The cards themselves are the 52 shared Card instances; who holds which card, and which
+ *     cards have been played, is kept by the room in a few compact arrays indexed by Card.toByte().
+ * </p>
+ * <p>
+ *     Every change the server broadcasts during a game increments the room's sequence number. Clients apply
+ *     these changes to their own copy of the room, and use the sequence number to notice a missed update,
+ *     in which case they ask the server for a full snapshot of the room.
+ * </p>
+ * <p>
+ *     The trick on the table is tracked as the cards are played: the led suit, the highest card of that suit
+ *     and who played it, so the player taking the trick is known as soon as the fourth card lands.
+ * </p>
+ * <p>
+ *     On the server, every seat's hand is kept as a bitboard, so that moves can be validated with
+ *     a few bit operations, instead of looking through the whole deck.
+ * </p>
+ * <p>
+ *     On the server, the room also keeps the ClientHandlers of its players, so that a broadcast reaches
+ *     exactly the players in the room, no matter how many other clients are connected.
  * </p>
  */
-public class Room implements Serializable {
+public class Room {
+
+    private static final int CARDS_IN_HAND = Card.CARDS_IN_DECK / 4;
 
     private final int roomId;
     private final int hostId;
@@ -27,13 +51,21 @@ public class Room implements Serializable {
     private final List<String> connectedPlayersNames = new ArrayList<>();
     private final HashMap<Integer, Integer> playerPoints = new HashMap<>(); //key - clientId, value - points
     private boolean isFull;
-    private List<Card> cards;
-    private final HashMap<Integer, Card> cardsOnTable = new HashMap<>();
+    private final LinkedHashMap<Integer, Card> cardsOnTable = new LinkedHashMap<>(); //in the order they were played
     private Card firstCardOnTable;
+    private long tableMask = Hands.EMPTY; //bitboard of the cards on the table
+    private int highestOnTable; //value of the highest card of the led suit on the table
+    private int trickTaker; //clientId of the player who played that card
     private int currentTurn;
     private int currentRound;
     private int turnCounter = 1;
     private boolean gameOver = false;
+    private int sequence = 0;
+    private final List<ClientHandler> subscribers = new CopyOnWriteArrayList<>();
+    private final long[] hands = new long[4]; //bitboards indexed by seat, see Hands
+    private long playedCards = Hands.EMPTY; //bitboard of the cards played this round
+    private final Card[] deck = Card.deck().toArray(new Card[0]); //shuffled before dealing
+    private RandomGenerator random;
 
     /**
      * Room class constructor.
@@ -49,25 +81,80 @@ public class Room implements Serializable {
         this.currentRound = 1;
         connectedPlayers.add(hostId);
         connectedPlayersNames.add(username);
+        this.random = RandomGenerator.getDefault();
+    }
 
-        initializeDeck();
+    /**
+     * Constructor used when a room is received from the server. The other fields are filled in by readFrom().
+     * @param hostId the ID of the player who created the room.
+     * @param roomId a unique ID given by the server.
+     */
+    private Room(int hostId, int roomId) {
+        this.hostId = hostId;
+        this.roomId = roomId;
     }
 
     /**
-     * Initializes a deck of cards. It creates 52 cards in total, and assigns them values
-     * and suits.
+     * Writes the room in the compact binary format used by the network protocol.
+     * <p>
+     *     Only what the clients need is sent: the players, their names and points, the cards on the table,
+     *     and whose turn and which round it is. The deck is left out, since it would reveal every player's hand.
+     *     The cards on the table are written in the order they were played, starting with the lead, so that
+     *     the receiver works out the same led suit and trick taker.
+     * </p>
+     * @param out the message being built.
      */
-    public void initializeDeck() {
-        cards = new ArrayList<>();
+    public void writeTo(MessageWriter out) {
+        out.writeInt(roomId);
+        out.writeInt(hostId);
+        out.writeInt(sequence);
+        out.writeInt(currentTurn);
+        out.writeByte(currentRound);
+        out.writeByte(turnCounter);
+        out.writeBoolean(isFull);
+        out.writeBoolean(gameOver);
+        out.writeByte(connectedPlayers.size());
+        for (int i = 0; i < connectedPlayers.size(); i++) {
+            out.writeInt(connectedPlayers.get(i));
+            out.writeString(connectedPlayersNames.get(i));
+            out.writeInt(playerPoints.getOrDefault(connectedPlayers.get(i), 0));
+        }
+        out.writeByte(cardsOnTable.size());
+        for (Map.Entry<Integer, Card> entry : cardsOnTable.entrySet()) {
+            out.writeByte(getSeat(entry.getKey()));
+            out.writeCard(entry.getValue());
+        }
+    }
 
-        Suit[] suits = {Suit.HEART, Suit.CLUB, Suit.DIAMOND, Suit.SPADE};
-        for (Suit suit : suits) {
-            for (int i = 2; i < 15; i++)
-            {
-                Card card = new Card(suit, i);
-                cards.add(card);
-            }
+    /**
+     * Reads a room written by writeTo(). The received room has an empty deck.
+     * @param in the received message.
+     * @return the received room.
+     * @throws IOException if the message is broken
+     */
+    public static Room readFrom(MessageReader in) throws IOException {
+        int roomId = in.readInt();
+        Room room = new Room(in.readInt(), roomId);
+        room.sequence = in.readInt();
+        room.currentTurn = in.readInt();
+        room.currentRound = in.readUnsignedByte();
+        room.turnCounter = in.readUnsignedByte();
+        room.isFull = in.readBoolean();
+        room.gameOver = in.readBoolean();
+        int playerCount = in.readUnsignedByte();
+        for (int i = 0; i < playerCount; i++) {
+            int playerId = in.readInt();
+            room.connectedPlayers.add(playerId);
+            room.connectedPlayersNames.add(in.readString());
+            int points = in.readInt();
+            if (room.isFull) room.playerPoints.put(playerId, points);
+        }
+        int cardsOnTable = in.readUnsignedByte();
+        for (int i = 0; i < cardsOnTable; i++) {
+            int playerId = room.connectedPlayers.get(in.readUnsignedByte());
+            room.putOnTable(playerId, in.readCard());
         }
+        return room;
     }
 
     /**
@@ -92,6 +179,19 @@ public class Room implements Serializable {
         }
     }
 
+    /**
+     * Gives up a player's seat, before the game started. The other players keep their ascending order.
+     * @param playerId the ID of the player who left.
+     */
+    public void removePlayer(int playerId) {
+        int index = connectedPlayers.indexOf(playerId);
+        if (index == -1) return;
+        connectedPlayers.remove(index);
+        connectedPlayersNames.remove(index);
+        playerPoints.remove(playerId);
+        isFull = false;
+    }
+
     /**
      * Updates the player's amount of points.
      * @param clientId the player whose points will be updated.
@@ -134,8 +234,16 @@ public class Room implements Serializable {
         this.currentRound++;
     }
 
+    /**
+     * Marks a new change in the game, which will be broadcast to the players.
+     * @return the change's sequence number.
+     */
+    public int incrementSequence() {
+        return ++this.sequence;
+    }
+
     public void resetTurnCounter() {
-        this.currentTurn = 1;
+        this.turnCounter = 1;
     }
 
     public boolean isFull(){
@@ -158,8 +266,155 @@ public class Room implements Serializable {
         return hostId;
     }
 
-    public List<Card> getCards() {
-        return this.cards;
+    /**
+     * Adds a player's ClientHandler to the ones receiving the room's broadcasts.
+     * @param handler the ClientHandler of a player who created or joined the room.
+     */
+    public void subscribe(ClientHandler handler) {
+        subscribers.add(handler);
+    }
+
+    /**
+     * Stops sending the room's broadcasts to a player, for example after they disconnected.
+     * @param handler the player's ClientHandler.
+     */
+    public void unsubscribe(ClientHandler handler) {
+        subscribers.remove(handler);
+    }
+
+    public List<ClientHandler> getSubscribers() {
+        return subscribers;
+    }
+
+    public long getHand(int seat) {
+        return hands[seat];
+    }
+
+    /**
+     * Deals a card to a seat.
+     * @param seat the seat of the player receiving the card.
+     * @param card the card.
+     */
+    public void addToHand(int seat, Card card) {
+        hands[seat] |= Hands.bit(card);
+    }
+
+    /**
+     * Takes a card out of a seat's hand, and marks it as played.
+     * @param seat the seat of the player who played the card.
+     * @param card the card.
+     */
+    public void removeFromHand(int seat, Card card) {
+        hands[seat] &= ~Hands.bit(card);
+        playedCards |= Hands.bit(card);
+    }
+
+    /**
+     * @return the cards played this round, including the ones still on the table, as a bitboard
+     */
+    public long getPlayedCards() {
+        return playedCards;
+    }
+
+    /**
+     * @return true if every card dealt this round has been played
+     */
+    public boolean allHandsEmpty() {
+        return (hands[0] | hands[1] | hands[2] | hands[3]) == Hands.EMPTY;
+    }
+
+    /**
+     * Deals all four hands from a single shuffle of the deck: the first 13 cards go to the first seat,
+     * the next 13 to the second one, and so on. Any cards still held are taken back first.
+     */
+    public void dealHands() {
+        clearHands();
+        Dealer.shuffle(deck, random);
+        for (int i = 0; i < Card.CARDS_IN_DECK; i++) {
+            addToHand(i / CARDS_IN_HAND, deck[i]);
+        }
+    }
+
+    /**
+     * Takes every card back, so that they can be dealt again.
+     */
+    public void clearHands() {
+        Arrays.fill(hands, Hands.EMPTY);
+        playedCards = Hands.EMPTY;
+    }
+
+    /**
+     * Finds a player's seat, that is their place in the turn order.
+     * @param clientId the player's ID.
+     * @return the seat, from 0 to 3, or -1 if the player isn't in the room.
+     */
+    public int getSeat(int clientId) {
+        return connectedPlayers.indexOf(clientId);
+    }
+
+    /**
+     * @param random the generator the room shuffles its deck with, see Dealer.
+     */
+    public void setRandom(RandomGenerator random) {
+        this.random = random;
+    }
+
+    /**
+     * Puts a played card on the table, and updates who's taking the trick.
+     * @param clientId the player who played the card.
+     * @param card the card.
+     */
+    public void putOnTable(int clientId, Card card) {
+        if (cardsOnTable.isEmpty()) {
+            firstCardOnTable = card;
+        }
+        cardsOnTable.put(clientId, card);
+        trackTrick(clientId, card);
+    }
+
+    /**
+     * Updates the bitboard of the table and the trick's highest card with a card on the table.
+     * The first card on the table has to be known already.
+     */
+    private void trackTrick(int clientId, Card card) {
+        tableMask |= Hands.bit(card);
+        if (card == firstCardOnTable || (card.getSuit() == firstCardOnTable.getSuit() && card.getValue() > highestOnTable)) {
+            highestOnTable = card.getValue();
+            trickTaker = clientId;
+        }
+    }
+
+    /**
+     * Takes the cards off the table, once the trick is over.
+     */
+    public void clearTable() {
+        cardsOnTable.clear();
+        firstCardOnTable = null;
+        tableMask = Hands.EMPTY;
+        highestOnTable = 0;
+        trickTaker = 0;
+    }
+
+    /**
+     * @return the ID of the player who played the highest card of the led suit, or 0 if the table is empty
+     */
+    public int getTrickTaker() {
+        return trickTaker;
+    }
+
+    /**
+     * @return the suit of the first card on the table, or null if the table is empty
+     */
+    public Suit getLedSuit() {
+        return firstCardOnTable == null ? null : firstCardOnTable.getSuit();
+    }
+
+    public long getTableMask() {
+        return tableMask;
+    }
+
+    public int getCardsLeft(int seat) {
+        return Hands.size(hands[seat]);
     }
 
     public HashMap<Integer, Card> getCardsOnTable() {
@@ -192,7 +447,15 @@ public class Room implements Serializable {
         return connectedPlayersNames;
     }
 
-    public void setFirstCardOnTable(Card card) {
-        this.firstCardOnTable = card;
+    public int getSequence() {
+        return this.sequence;
+    }
+
+    public void setSequence(int sequence) {
+        this.sequence = sequence;
+    }
+
+    public void setCurrentRound(int currentRound) {
+        this.currentRound = currentRound;
     }
 }
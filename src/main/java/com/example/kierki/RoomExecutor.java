@@ -0,0 +1,55 @@
+package com.example.kierki;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The RoomExecutor runs the commands of all the rooms on a fixed amount of worker threads.
+ * <p>
+ *     Every room is pinned to one worker, chosen by the room's ID, and each worker is a single thread,
+ *     so a room's commands run one after another, in the order they were submitted, and never in parallel.
+ *     The game logic can therefore change a room without any locks, while different rooms are spread over
+ *     all the workers.
+ * </p>
+ * <p>
+ *     The amount of workers can be changed with the kierki.roomWorkers system property, and defaults to
+ *     the amount of processors.
+ * </p>
+ */
+public class RoomExecutor {
+    public static final int DEFAULT_WORKERS = Integer.getInteger("kierki.roomWorkers", Runtime.getRuntime().availableProcessors());
+    private final ExecutorService[] workers;
+
+    public RoomExecutor() {
+        this(DEFAULT_WORKERS);
+    }
+
+    /**
+     * The class constructor. Starts the worker threads, as daemon threads.
+     * @param workerCount the amount of worker threads.
+     */
+    public RoomExecutor(int workerCount) {
+        this.workers = new ExecutorService[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            String name = "room-worker-" + i;
+            workers[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Queues a command on the worker owning the room.
+     * @param roomId the room the command belongs to.
+     * @param command the command.
+     */
+    public void execute(int roomId, Runnable command) {
+        workers[Math.floorMod(roomId, workers.length)].execute(command);
+    }
+
+    public int getWorkerCount() {
+        return workers.length;
+    }
+}
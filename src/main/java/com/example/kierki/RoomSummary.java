@@ -0,0 +1,42 @@
+package com.example.kierki;
+
+/**
+ * The RoomSummary class is what the lobby shows about a room: its ID, the name of its host,
+ * and how many players are already in it. It is sent instead of the whole Room when a client
+ * browses the open rooms.
+ */
+public class RoomSummary {
+
+    private final int roomId;
+    private final String hostName;
+    private final int playerAmount;
+
+    public RoomSummary(int roomId, String hostName, int playerAmount) {
+        this.roomId = roomId;
+        this.hostName = hostName;
+        this.playerAmount = playerAmount;
+    }
+
+    /**
+     * Creates the summary of a room.
+     * @param room the summarized room.
+     * @return the room's summary
+     */
+    public static RoomSummary of(Room room) {
+        String hostName = room.getConnectedPlayersNames().get(room.getSeat(room.getHostId()));
+        return new RoomSummary(room.getRoomId(), hostName, room.getPlayerAmount());
+    }
+
+    public int getRoomId() {
+        return roomId;
+    }
+    public String getHostName() {
+        return hostName;
+    }
+    public int getPlayerAmount() {
+        return playerAmount;
+    }
+    public int getFreeSeats() {
+        return 4 - playerAmount;
+    }
+}
@@ -8,6 +8,7 @@ import javafx.scene.layout.VBox;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 
 /**
  * The JavaFX controller responsible for generating and updating the lobby scene.
@@ -20,6 +21,7 @@ public class RoomsController {
 
     private Client client;
     private final HashMap<Integer, Button> roomButtons = new HashMap<>();
+    private final Button moreRoomsButton = new Button("More rooms...");
     @FXML
     private VBox availableRoomsList;
     @FXML
@@ -56,24 +58,42 @@ public class RoomsController {
     }
 
     /**
-     * Updates the list of currently open rooms whenever a new room has been created,
+     * Updates the list of currently open rooms whenever a room is received with a page of rooms,
      * setting the correct labels and creating a new onClick
      * event, which calls a method that requests the server to join the room.
-     * @param room a newly created room, to be added to the list of buttons.
+     * @param room a room received from the server, to be added to the list of buttons.
      */
-    public void addRoom(Room room){
+    public void addRoom(RoomSummary room){
+        Platform.runLater(() -> putRoomButton(room));
+    }
+
+    /**
+     * Applies a batch of changes to the list of open rooms, all in a single pass on the JavaFX thread.
+     * @param changed the rooms created or changed since the last update.
+     * @param removed the IDs of the rooms removed since the last update.
+     */
+    public void applyLobbyUpdate(List<RoomSummary> changed, List<Integer> removed) {
         Platform.runLater(() -> {
-            Button button = new Button();
-            if (room.isFull())
-            {
-                button.setText("Full! 4/4");
+            for (RoomSummary room : changed) {
+                putRoomButton(room);
             }
-            else
-            {
-                button.setText("Room ID: " + room.getRoomId() +  " Players " + room.getPlayerAmount() + "/4");
+            for (Integer roomId : removed) {
+                availableRoomsList.getChildren().remove(roomButtons.remove(roomId));
             }
+        });
+    }
 
-            availableRoomsList.getChildren().add(button);
+    /**
+     * Creates the button of a room, or updates its label if it already exists. Must run on the JavaFX thread.
+     * @param room the room's summary.
+     */
+    private void putRoomButton(RoomSummary room) {
+        Button button = roomButtons.get(room.getRoomId());
+        if (button == null) {
+            button = new Button();
+            int moreRoomsIndex = availableRoomsList.getChildren().indexOf(moreRoomsButton); //stays at the bottom of the list
+            if (moreRoomsIndex == -1) availableRoomsList.getChildren().add(button);
+            else availableRoomsList.getChildren().add(moreRoomsIndex, button);
             roomButtons.put(room.getRoomId(), button);
 
             button.setOnAction(e -> {
@@ -83,26 +103,27 @@ public class RoomsController {
                     throw new RuntimeException(ex);
                 }
             });
-        });
+        }
+
+        if (room.getFreeSeats() == 0)
+        {
+            button.setText("Full! 4/4");
+        }
+        else
+        {
+            button.setText("Room ID: " + room.getRoomId() + " Host: " + room.getHostName() + " Players " + room.getPlayerAmount() + "/4");
+        }
     }
 
     /**
-     * Updates the list of room buttons whenever a player joins a room.
-     * @param roomId the ID of the room which changed.
-     * @param playerCount the amount of players now in the room.
+     * Shows or hides the button at the bottom of the list, which loads the next page of rooms.
+     * @param visible true if the server has more rooms to show.
      */
-    public void updateRoomButton(int roomId, int playerCount) {
-        if (roomButtons.get(roomId) != null)
-        {
-            Platform.runLater(() -> {
-                if (playerCount >= 4) {
-                    roomButtons.get(roomId).setText("Full! 4/4");
-                }
-                else {
-                    roomButtons.get(roomId).setText("Room Id: " + roomId + " Players " + playerCount + "/4");
-                }
-            });
-        }
+    public void showMoreRoomsButton(boolean visible) {
+        Platform.runLater(() -> {
+            availableRoomsList.getChildren().remove(moreRoomsButton);
+            if (visible) availableRoomsList.getChildren().add(moreRoomsButton);
+        });
     }
 
     /**
@@ -120,5 +141,12 @@ public class RoomsController {
 
     public void setClient(Client client) {
         this.client = client;
+        moreRoomsButton.setOnAction(e -> {
+            try {
+                client.requestMoreRooms();
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
     }
 }
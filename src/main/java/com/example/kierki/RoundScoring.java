@@ -0,0 +1,154 @@
+package com.example.kierki;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Predicate;
+
+/**
+ * The scoring of a single round, as precomputed tables.
+ * <p>
+ *     The card table holds the points every card is worth to the player taking it, indexed by Card.toByte(),
+ *     and the trick table holds the points added to a whole trick, indexed by the trick's number (1-13).
+ * </p>
+ * <p>
+ *     A trick stored as a bitboard (see Hands) is scored through the suit tables instead: one for every suit,
+ *     indexed by the 13 bits the suit takes in the bitboard, holding the points of all those cards together.
+ *     Scoring a trick is therefore the trick's bonus plus four lookups, with no loop over the cards, whatever
+ *     the round's rules. A suit worth no points in the round shares a single table of zeros.
+ * </p>
+ */
+public final class RoundScoring {
+    public static final int TRICKS_IN_ROUND = Card.CARDS_IN_DECK / 4;
+    private static final int SUIT_BITS = (1 << Card.CARDS_IN_SUIT) - 1;
+    private static final int[] NO_POINTS = new int[SUIT_BITS + 1];
+
+    private final int[] cardPoints;
+    private final int[] trickPoints;
+    private final int[] diamondPoints;
+    private final int[] clubPoints;
+    private final int[] heartPoints;
+    private final int[] spadePoints;
+
+    /**
+     * The class constructor. The tables are copied, so the caller may reuse them.
+     * @param cardPoints the points of every card, indexed by Card.toByte().
+     * @param trickPoints the points of every trick, indexed by the trick's number, index 0 is unused.
+     * @throws IllegalArgumentException if the tables don't have the right lengths
+     */
+    public RoundScoring(int[] cardPoints, int[] trickPoints) {
+        if (cardPoints.length != Card.CARDS_IN_DECK || trickPoints.length != TRICKS_IN_ROUND + 1) {
+            throw new IllegalArgumentException("Expected " + Card.CARDS_IN_DECK + " card and "
+                    + (TRICKS_IN_ROUND + 1) + " trick entries");
+        }
+        this.cardPoints = cardPoints.clone();
+        this.trickPoints = trickPoints.clone();
+        this.diamondPoints = suitPoints(Suit.DIAMOND);
+        this.clubPoints = suitPoints(Suit.CLUB);
+        this.heartPoints = suitPoints(Suit.HEART);
+        this.spadePoints = suitPoints(Suit.SPADE);
+    }
+
+    /**
+     * Builds a suit's table, each entry from an entry with one card less, lowest card first.
+     * @param suit a suit.
+     * @return the points of every set of the suit's cards, indexed by the set's 13 bits
+     */
+    private int[] suitPoints(Suit suit) {
+        int first = suit.ordinal() * Card.CARDS_IN_SUIT;
+        boolean scores = false;
+        for (int i = 0; i < Card.CARDS_IN_SUIT; i++) {
+            scores |= cardPoints[first + i] != 0;
+        }
+        if (!scores) return NO_POINTS;
+
+        int[] points = new int[SUIT_BITS + 1];
+        for (int cards = 1; cards <= SUIT_BITS; cards++) {
+            points[cards] = points[cards & (cards - 1)] + cardPoints[first + Integer.numberOfTrailingZeros(cards)];
+        }
+        return points;
+    }
+
+    /**
+     * @param points the points of every trick, whatever cards it holds.
+     * @return a round where only the tricks are worth points
+     */
+    public static RoundScoring perTrick(int points) {
+        int[] trickPoints = new int[TRICKS_IN_ROUND + 1];
+        Arrays.fill(trickPoints, 1, trickPoints.length, points);
+        return new RoundScoring(new int[Card.CARDS_IN_DECK], trickPoints);
+    }
+
+    /**
+     * @param matches the cards worth points.
+     * @param points the points of each of those cards.
+     * @return a round where only the matching cards are worth points
+     */
+    public static RoundScoring perCard(Predicate<Card> matches, int points) {
+        int[] cardPoints = new int[Card.CARDS_IN_DECK];
+        for (int i = 0; i < Card.CARDS_IN_DECK; i++) {
+            if (matches.test(Card.fromByte(i))) cardPoints[i] = points;
+        }
+        return new RoundScoring(cardPoints, new int[TRICKS_IN_ROUND + 1]);
+    }
+
+    /**
+     * @param points the points of the chosen tricks.
+     * @param trickNumbers the chosen tricks' numbers (1-13).
+     * @return a round where only the chosen tricks are worth points
+     */
+    public static RoundScoring onTricks(int points, int... trickNumbers) {
+        int[] trickPoints = new int[TRICKS_IN_ROUND + 1];
+        for (int trickNumber : trickNumbers) {
+            trickPoints[trickNumber] = points;
+        }
+        return new RoundScoring(new int[Card.CARDS_IN_DECK], trickPoints);
+    }
+
+    /**
+     * Adds the tables of several rounds together, the way the last round sums up all the previous ones.
+     * @param rounds the rounds to add.
+     * @return a round worth the points of all the given rounds
+     */
+    public static RoundScoring sum(RoundScoring... rounds) {
+        int[] cardPoints = new int[Card.CARDS_IN_DECK];
+        int[] trickPoints = new int[TRICKS_IN_ROUND + 1];
+        for (RoundScoring round : rounds) {
+            for (int i = 0; i < cardPoints.length; i++) cardPoints[i] += round.cardPoints[i];
+            for (int i = 0; i < trickPoints.length; i++) trickPoints[i] += round.trickPoints[i];
+        }
+        return new RoundScoring(cardPoints, trickPoints);
+    }
+
+    /**
+     * @param trick the cards on the table.
+     * @param trickNumber the trick's number in the round (1-13).
+     * @return the points gained by the player taking the trick
+     */
+    public int score(Collection<Card> trick, int trickNumber) {
+        int points = trickPoints[trickNumber];
+        for (Card card : trick) {
+            points += cardPoints[card.toByte()];
+        }
+        return points;
+    }
+
+    /**
+     * @param trick the cards on the table, as a bitboard, see Hands.
+     * @param trickNumber the trick's number in the round (1-13).
+     * @return the points gained by the player taking the trick
+     */
+    public int score(long trick, int trickNumber) {
+        return trickPoints[trickNumber]
+                + diamondPoints[(int) trick & SUIT_BITS]
+                + clubPoints[(int) (trick >>> Card.CARDS_IN_SUIT) & SUIT_BITS]
+                + heartPoints[(int) (trick >>> 2 * Card.CARDS_IN_SUIT) & SUIT_BITS]
+                + spadePoints[(int) (trick >>> 3 * Card.CARDS_IN_SUIT) & SUIT_BITS];
+    }
+
+    /**
+     * @return the points of the whole round, that is of every card and every trick
+     */
+    public int total() {
+        return Arrays.stream(cardPoints).sum() + Arrays.stream(trickPoints).sum();
+    }
+}
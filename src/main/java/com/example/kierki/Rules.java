@@ -0,0 +1,61 @@
+package com.example.kierki;
+
+/**
+ * The rules of playing a card, shared by the server and the simulator.
+ * <p>
+ *     The rules work on hands stored as bitboards (see Hands), and never look at a Room, so that they can be
+ *     used wherever a game is played. A player always has to follow the led suit if they can. In the rounds
+ *     where hearts are worth points (2, 5 and 7), a trick can't be opened with a heart, unless the player
+ *     has nothing but hearts left.
+ * </p>
+ */
+public final class Rules {
+
+    private Rules() {
+    }
+
+    /**
+     * @param round the round's number, starting from 1.
+     * @return true if a trick can't be opened with a heart in this round
+     */
+    public static boolean restrictsHeartLead(int round) {
+        return round == 2 || round == 5 || round == 7;
+    }
+
+    /**
+     * Finds all the cards a player is allowed to play.
+     * @param round the round's number, starting from 1.
+     * @param hand the player's hand.
+     * @param ledSuit the suit of the first card on the table, or null if the player opens the trick.
+     * @return the allowed cards, as a bitboard, empty only if the hand is empty
+     */
+    public static long legalMoves(int round, long hand, Suit ledSuit) {
+        if (ledSuit != null) {
+            return Hands.hasSuit(hand, ledSuit) ? hand & Hands.suitMask(ledSuit) : hand;
+        }
+        if (restrictsHeartLead(round) && !Hands.onlyHearts(hand)) {
+            return hand & ~Hands.suitMask(Suit.HEART);
+        }
+        return hand;
+    }
+
+    /**
+     * @param round the round's number, starting from 1.
+     * @param hand the player's hand.
+     * @param ledSuit the suit of the first card on the table, or null if the player opens the trick.
+     * @param card the card the player wants to play.
+     * @return true if the player holds the card, and is allowed to play it
+     */
+    public static boolean isLegal(int round, long hand, Suit ledSuit, Card card) {
+        return Hands.contains(legalMoves(round, hand, ledSuit), card);
+    }
+
+    /**
+     * @param card a card played to the trick.
+     * @param highest the highest card of the led suit played so far.
+     * @return true if the card takes over the trick
+     */
+    public static boolean beats(Card card, Card highest) {
+        return card.getSuit() == highest.getSuit() && card.getValue() > highest.getValue();
+    }
+}
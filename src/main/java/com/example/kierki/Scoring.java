@@ -0,0 +1,80 @@
+package com.example.kierki;
+
+import java.util.Collection;
+
+/**
+ * A set of rounds making up a whole game, each scored by its own RoundScoring.
+ * <p>
+ *     The rules of the rounds are data, so a variant of the game is just another Scoring. STANDARD holds
+ *     the seven classic rounds: no tricks, no hearts, no queens, no jacks or kings, no king of hearts,
+ *     no seventh or last trick, and finally all of them at once.
+ * </p>
+ */
+public final class Scoring {
+    public static final Scoring STANDARD = standard();
+
+    private final RoundScoring[] rounds;
+
+    /**
+     * The class constructor.
+     * @param rounds the rounds, in the order they're played.
+     * @throws IllegalArgumentException if there are no rounds
+     */
+    public Scoring(RoundScoring... rounds) {
+        if (rounds.length == 0) {
+            throw new IllegalArgumentException("A game needs at least one round");
+        }
+        this.rounds = rounds.clone();
+    }
+
+    private static Scoring standard() {
+        RoundScoring tricks = RoundScoring.perTrick(20);
+        RoundScoring hearts = RoundScoring.perCard(card -> card.getSuit() == Suit.HEART, 20);
+        RoundScoring queens = RoundScoring.perCard(card -> card.getValue() == 12, 60);
+        RoundScoring sirs = RoundScoring.perCard(card -> card.getValue() == 11 || card.getValue() == 13, 30);
+        RoundScoring kingOfHearts = RoundScoring.perCard(card -> card.getValue() == 13 && card.getSuit() == Suit.HEART, 150);
+        RoundScoring seventhAndLast = RoundScoring.onTricks(300, 7, RoundScoring.TRICKS_IN_ROUND); //75 for each card on the table
+
+        return new Scoring(tricks, hearts, queens, sirs, kingOfHearts, seventhAndLast,
+                RoundScoring.sum(tricks, hearts, queens, sirs, kingOfHearts, seventhAndLast));
+    }
+
+    /**
+     * @param round the round's number, starting from 1.
+     * @param trick the cards on the table.
+     * @param trickNumber the trick's number in the round (1-13).
+     * @return the points gained by the player taking the trick
+     */
+    public int score(int round, Collection<Card> trick, int trickNumber) {
+        return rounds[round - 1].score(trick, trickNumber);
+    }
+
+    /**
+     * @param round the round's number, starting from 1.
+     * @param trick the cards on the table, as a bitboard, see Hands.
+     * @param trickNumber the trick's number in the round (1-13).
+     * @return the points gained by the player taking the trick
+     */
+    public int score(int round, long trick, int trickNumber) {
+        return rounds[round - 1].score(trick, trickNumber);
+    }
+
+    public RoundScoring getRound(int round) {
+        return rounds[round - 1];
+    }
+
+    public int getRoundCount() {
+        return rounds.length;
+    }
+
+    /**
+     * @return the points handed out over a whole game, the same for every game
+     */
+    public int total() {
+        int total = 0;
+        for (RoundScoring round : rounds) {
+            total += round.total();
+        }
+        return total;
+    }
+}
@@ -3,17 +3,51 @@ package com.example.kierki;
 import java.io.*;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * The Server class is responsible for accepting clients, assigning them unique IDs, and creating
  * new instances of the ClientHandler class, which then handler all client-server communication.
+ * <p>
+ *     This is the blocking server, where every ClientHandler runs on its own thread, taken from the given
+ *     executor: either platform threads, or virtual threads, which let the same blocking code serve tens
+ *     of thousands of clients. The application's main method can also start the non-blocking NioServer
+ *     instead, by passing "nio" as the first argument.
+ * </p>
  */
 public class Server {
+    public static final int PORT = 6666;
+    private static final int ACCEPT_BACKLOG = 1024;
     private final ServerSocket serverSocket;
+    private final ExecutorService executor;
     private int clientIds = 1;
 
-    public Server(ServerSocket serverSocket){
+    /**
+     * The class constructor.
+     * @param serverSocket the socket the server accepts clients on.
+     * @param executor the executor running the ClientHandlers, see createExecutor().
+     */
+    public Server(ServerSocket serverSocket, ExecutorService executor){
         this.serverSocket = serverSocket;
+        this.executor = executor;
+    }
+
+    /**
+     * Creates the executor running the ClientHandlers.
+     * <p>
+     *     In the "virtual" mode every client gets its own virtual thread. Virtual threads only exist since
+     *     Java 21, so the mode is only there if the server was built with JDK 21 or newer, see VirtualThreads.
+     * </p>
+     * @param mode "virtual" for virtual threads, anything else for platform threads.
+     * @return an executor starting a new thread for every ClientHandler.
+     * @throws UnsupportedOperationException in the "virtual" mode, if the server was built for Java 17
+     */
+    public static ExecutorService createExecutor(String mode) {
+        if (mode.equals("virtual")) {
+            return VirtualThreads.newPerTaskExecutor();
+        }
+        return Executors.newCachedThreadPool();
     }
 
     /**
@@ -22,16 +56,15 @@ public class Server {
      */
     public void startServer()
     {
-        System.out.println("Server is running...");
+        Log.info("Server is running...");
         try{
             while(!serverSocket.isClosed()){
 
                 Socket socket = serverSocket.accept();
-                System.out.println("Client connected");
-                ClientHandler clientHandler = new ClientHandler(socket, clientIds);
+                Log.debug(() -> "Client connected");
+                ClientHandler clientHandler = new ClientHandler(socket, clientIds, executor);
 
-                Thread thread = new Thread(clientHandler);
-                thread.start();
+                executor.execute(clientHandler);
 
                 clientIds++;
             }
@@ -40,29 +73,49 @@ public class Server {
         }
     }
 
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
     /**
      * Shuts down the server.
      */
     public void closeServerSocket(){
         try {
+            executor.shutdown();
             if (serverSocket != null){
                 serverSocket.close();
             }
         } catch (IOException e)
         {
-            e.printStackTrace();
+            Log.error("Couldn't close the server socket", e);
         }
     }
 
 
+    /**
+     * Starts the server in the chosen mode.
+     * @param args optional: the mode, "blocking" (default), "virtual" or "nio", and for the "nio" mode,
+     *             the amount of event loops (defaults to the amount of processors).
+     */
     public static void main(String[] args) {
+        String mode = args.length > 0 ? args[0] : "blocking";
+        ServerMetrics.INSTANCE.start();
 
         try {
-            ServerSocket serverSocket = new ServerSocket(6666);
-            Server server = new Server(serverSocket);
-            server.startServer();
-            server.closeServerSocket();
-        } catch (IOException e){
+            if (mode.equals("nio")) {
+                int eventLoops = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+                NioServer server = new NioServer(PORT, eventLoops);
+                server.startServer();
+                server.closeServerChannel();
+            }
+            else {
+                ServerSocket serverSocket = new ServerSocket(PORT, ACCEPT_BACKLOG);
+                Server server = new Server(serverSocket, createExecutor(mode));
+                server.startServer();
+                server.closeServerSocket();
+            }
+        } catch (IOException | UnsupportedOperationException e){
             e.printStackTrace();
             System.exit(1);
         }
@@ -0,0 +1,195 @@
+package com.example.kierki;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The server's metrics: what the clients send and receive, and how long handling it takes.
+ * <p>
+ *     Every Request type has its own LatencyHistogram, measured from the moment the request was read until
+ *     it was fully handled, including the wait for the room's worker. The broadcasts have one more, measured
+ *     from the first to the last recipient. All the metrics are recorded without locking, with atomic counters,
+ *     so any thread can record them on the hot path.
+ * </p>
+ * <p>
+ *     Once started, the metrics are exposed as JMX MBeans in the com.example.kierki domain, and appended to
+ *     the file in the kierki.metricsLog property (kierki-metrics.log by default) every kierki.metricsMillis
+ *     milliseconds (60000 by default, 0 turns the log off).
+ * </p>
+ */
+public class ServerMetrics implements ServerMetricsMBean {
+    public static final ServerMetrics INSTANCE = new ServerMetrics();
+    public static final long DUMP_MILLIS = Long.getLong("kierki.metricsMillis", 60_000);
+    public static final String LOG_FILE = System.getProperty("kierki.metricsLog", "kierki-metrics.log");
+    private static final String DOMAIN = "com.example.kierki";
+
+    private final Map<Request, LatencyHistogram> requests = new EnumMap<>(Request.class);
+    private final LatencyHistogram fanOut = new LatencyHistogram();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder messagesIn = new LongAdder();
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final LongAdder gamesCompleted = new LongAdder();
+
+    private ServerMetrics() {
+        for (Request request : Request.values()) {
+            requests.put(request, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Registers the MBeans, and starts the daemon thread appending the metrics to the log.
+     */
+    public void start() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(this, new ObjectName(DOMAIN + ":type=ServerMetrics"));
+            server.registerMBean(fanOut, new ObjectName(DOMAIN + ":type=FanOutLatency"));
+            for (Map.Entry<Request, LatencyHistogram> entry : requests.entrySet()) {
+                server.registerMBean(entry.getValue(), new ObjectName(DOMAIN + ":type=RequestLatency,name=" + entry.getKey()));
+            }
+        } catch (JMException e) {
+            Log.warn("Couldn't register the metrics with JMX: " + e.getMessage());
+        }
+
+        if (DUMP_MILLIS > 0) {
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-log");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleAtFixedRate(this::appendToLog, DUMP_MILLIS, DUMP_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void appendToLog() {
+        try (Writer writer = Files.newBufferedWriter(Path.of(LOG_FILE), StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(Instant.now() + System.lineSeparator() + dump() + System.lineSeparator());
+        } catch (IOException e) {
+            Log.warn("Couldn't write the metrics to " + LOG_FILE + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param request the request's type.
+     * @return the histogram of how long handling requests of that type takes
+     */
+    public LatencyHistogram request(Request request) {
+        return requests.get(request);
+    }
+
+    public LatencyHistogram getFanOut() {
+        return fanOut;
+    }
+
+    /**
+     * Counts a message read from a client.
+     * @param payloadSize the size of the message's payload, without the frame's length.
+     */
+    public void messageIn(int payloadSize) {
+        messagesIn.increment();
+        bytesIn.add(Message.HEADER_SIZE + payloadSize);
+    }
+
+    /**
+     * Counts bytes written to a client.
+     * @param bytes the amount of bytes.
+     */
+    public void bytesOut(long bytes) {
+        bytesOut.add(bytes);
+    }
+
+    public void connectionOpened() {
+        activeConnections.incrementAndGet();
+    }
+
+    public void connectionClosed() {
+        activeConnections.decrementAndGet();
+    }
+
+    public void gameCompleted() {
+        gamesCompleted.increment();
+    }
+
+    @Override
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    @Override
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    @Override
+    public long getMessagesIn() {
+        return messagesIn.sum();
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    @Override
+    public int getActiveRooms() {
+        return ClientHandler.getRoomCount();
+    }
+
+    @Override
+    public long getGamesCompleted() {
+        return gamesCompleted.sum();
+    }
+
+    @Override
+    public int getHighestQueueDepth() {
+        return OutboundQueue.getHighestDepth();
+    }
+
+    @Override
+    public long getDroppedMessages() {
+        return OutboundQueue.getDroppedMessages();
+    }
+
+    @Override
+    public long getOverflowDisconnects() {
+        return OutboundQueue.getOverflowDisconnects();
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder dump = new StringBuilder()
+                .append("connections=").append(getActiveConnections())
+                .append(" rooms=").append(getActiveRooms())
+                .append(" gamesCompleted=").append(getGamesCompleted())
+                .append(" messagesIn=").append(getMessagesIn())
+                .append(" bytesIn=").append(getBytesIn())
+                .append(" bytesOut=").append(getBytesOut())
+                .append(" highestQueueDepth=").append(getHighestQueueDepth())
+                .append(" droppedMessages=").append(getDroppedMessages())
+                .append(" overflowDisconnects=").append(getOverflowDisconnects())
+                .append(System.lineSeparator())
+                .append("  fan-out ").append(fanOut.summary());
+        for (Map.Entry<Request, LatencyHistogram> entry : requests.entrySet()) {
+            if (entry.getValue().getCount() > 0) {
+                dump.append(System.lineSeparator()).append("  ").append(entry.getKey()).append(' ').append(entry.getValue().summary());
+            }
+        }
+        return dump.toString();
+    }
+}
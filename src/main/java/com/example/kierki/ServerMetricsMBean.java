@@ -0,0 +1,33 @@
+package com.example.kierki;
+
+/**
+ * The server's counters, as seen over JMX, under com.example.kierki:type=ServerMetrics.
+ */
+public interface ServerMetricsMBean {
+
+    long getBytesIn();
+
+    long getBytesOut();
+
+    long getMessagesIn();
+
+    int getActiveConnections();
+
+    int getActiveRooms();
+
+    long getGamesCompleted();
+
+    /**
+     * @return the most messages ever waiting for a single client, see OutboundQueue
+     */
+    int getHighestQueueDepth();
+
+    long getDroppedMessages();
+
+    long getOverflowDisconnects();
+
+    /**
+     * @return all the counters, and every histogram's summary, one per line, like in the metrics log
+     */
+    String dump();
+}
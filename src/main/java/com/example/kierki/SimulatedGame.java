@@ -0,0 +1,251 @@
+package com.example.kierki;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * A whole game of Kierki between four seats, played in memory, without a server, sockets or a GUI.
+ * <p>
+ *     The game follows the same Rules and Scoring as the server, and keeps its state the way the Room does:
+ *     a bitboard per hand, and the trick's led suit, highest card and taker, updated as the cards are played.
+ *     It allocates nothing while playing, so a single thread can play many thousands of games per second.
+ * </p>
+ * <p>
+ *     The seats follow the Room's turn order, which is by ascending client ID, so the host can sit anywhere:
+ *     bots, with their negative IDs, and players with lower IDs sit before them. The rounds are opened the way
+ *     the server opens them: the Room starts the game on the host's turn, so the host's seat opens the first
+ *     round, and ClientHandler.changeRound() gives the turn back to the host and moves it on once, so the seat
+ *     after the host's opens every later round, whoever took the last trick. Within a round, the trick's taker
+ *     opens the next trick.
+ * </p>
+ */
+public class SimulatedGame {
+    public static final int PLAYERS = 4;
+    private static final int CARDS_IN_HAND = Card.CARDS_IN_DECK / PLAYERS;
+
+    private final Scoring scoring;
+    private final int hostSeat;
+    private final Card[] deck = Card.deck().toArray(new Card[0]);
+    private final long[] hands = new long[PLAYERS];
+    private final int[] points = new int[PLAYERS];
+    private int round = 1;
+    private int trickNumber = 1;
+    private int currentSeat;
+    private int cardsOnTable;
+    private long table = Hands.EMPTY;
+    private Suit ledSuit;
+    private Card highest;
+    private int takerSeat;
+
+    public SimulatedGame() {
+        this(Scoring.STANDARD);
+    }
+
+    /**
+     * @param scoring the rounds of the game.
+     */
+    public SimulatedGame(Scoring scoring) {
+        this(scoring, 0);
+    }
+
+    /**
+     * The class constructor. The game starts in the first round, with no cards dealt.
+     * @param scoring the rounds of the game.
+     * @param hostSeat the seat of the room's host, from 0 to 3, which decides who opens the rounds.
+     */
+    public SimulatedGame(Scoring scoring, int hostSeat) {
+        this.scoring = scoring;
+        this.hostSeat = hostSeat;
+    }
+
+    /**
+     * Copies a game, so that it can be played on without changing the original.
+     * @param other the game to copy.
+     */
+    public SimulatedGame(SimulatedGame other) {
+        this.scoring = other.scoring;
+        this.hostSeat = other.hostSeat;
+        System.arraycopy(other.deck, 0, this.deck, 0, Card.CARDS_IN_DECK);
+        System.arraycopy(other.hands, 0, this.hands, 0, PLAYERS);
+        System.arraycopy(other.points, 0, this.points, 0, PLAYERS);
+        this.round = other.round;
+        this.trickNumber = other.trickNumber;
+        this.currentSeat = other.currentSeat;
+        this.cardsOnTable = other.cardsOnTable;
+        this.table = other.table;
+        this.ledSuit = other.ledSuit;
+        this.highest = other.highest;
+        this.takerSeat = other.takerSeat;
+    }
+
+    /**
+     * Sets up a round already in progress, at the start of a trick, with no points given yet.
+     * The cards already on the table can then be played again with play().
+     * @param round the round's number, starting from 1.
+     * @param trickNumber the trick's number in the round (1-13).
+     * @param currentSeat the seat opening the trick.
+     * @param hands the hands of all four seats.
+     */
+    public void setUp(int round, int trickNumber, int currentSeat, long[] hands) {
+        this.round = round;
+        this.trickNumber = trickNumber;
+        this.currentSeat = currentSeat;
+        System.arraycopy(hands, 0, this.hands, 0, PLAYERS);
+        Arrays.fill(points, 0);
+        cardsOnTable = 0;
+        table = Hands.EMPTY;
+        ledSuit = null;
+        highest = null;
+    }
+
+    /**
+     * Plays the rest of the current round with a single strategy for all the seats.
+     * @param strategy the strategy.
+     * @param random the generator used by the strategy.
+     */
+    public void playRound(Strategy strategy, RandomGenerator random) {
+        while (!isRoundOver()) {
+            play(strategy.chooseCard(this, legalMoves(), random));
+        }
+    }
+
+    /**
+     * Plays a whole game.
+     * @param strategies the strategy of every seat.
+     * @param random the generator used for dealing, and by the strategies.
+     * @return the seat of the winner, that is the player with the fewest points
+     * @throws IllegalStateException if a strategy chose a card it wasn't allowed to play
+     */
+    public int playGame(Strategy[] strategies, RandomGenerator random) {
+        while (!isOver()) {
+            dealRound(random);
+            while (!isRoundOver()) {
+                Card card = strategies[currentSeat].chooseCard(this, legalMoves(), random);
+                if (!Hands.contains(legalMoves(), card)) {
+                    throw new IllegalStateException("Seat " + currentSeat + " played an illegal card: " + card.getValue() + " " + card.getSuit());
+                }
+                play(card);
+            }
+        }
+        return getWinner();
+    }
+
+    /**
+     * Deals all four hands from a single shuffle, and gives the lead to the player opening the round.
+     * @param random the generator the deck is shuffled with.
+     */
+    public void dealRound(RandomGenerator random) {
+        Dealer.shuffle(deck, random);
+        for (int seat = 0; seat < PLAYERS; seat++) {
+            hands[seat] = Hands.EMPTY;
+        }
+        for (int i = 0; i < Card.CARDS_IN_DECK; i++) {
+            hands[i / CARDS_IN_HAND] |= Hands.bit(deck[i]);
+        }
+        trickNumber = 1;
+        currentSeat = round == 1 ? hostSeat : (hostSeat + 1) % PLAYERS; //see the class comment
+    }
+
+    /**
+     * @return the cards the player whose turn it is is allowed to play, as a bitboard
+     */
+    public long legalMoves() {
+        return Rules.legalMoves(round, hands[currentSeat], ledSuit);
+    }
+
+    /**
+     * Plays a card for the player whose turn it is. The card isn't checked against the rules.
+     * Once the fourth card is played, the trick's taker gets its points and opens the next trick,
+     * and once the last trick is taken, the game moves on to the next round.
+     * @param card the card to play.
+     */
+    public void play(Card card) {
+        hands[currentSeat] &= ~Hands.bit(card);
+        table |= Hands.bit(card);
+        if (cardsOnTable == 0 || Rules.beats(card, highest)) {
+            if (cardsOnTable == 0) ledSuit = card.getSuit();
+            highest = card;
+            takerSeat = currentSeat;
+        }
+        cardsOnTable++;
+        currentSeat = (currentSeat + 1) % PLAYERS;
+
+        if (cardsOnTable == PLAYERS) {
+            endTrick();
+        }
+    }
+
+    private void endTrick() {
+        points[takerSeat] += scoring.score(round, table, trickNumber);
+        currentSeat = takerSeat;
+        cardsOnTable = 0;
+        table = Hands.EMPTY;
+        ledSuit = null;
+        highest = null;
+
+        if (trickNumber == CARDS_IN_HAND) {
+            round++;
+        }
+        trickNumber++;
+    }
+
+    /**
+     * @return true if the round's last trick has been taken, or no cards have been dealt yet
+     */
+    public boolean isRoundOver() {
+        return (hands[0] | hands[1] | hands[2] | hands[3]) == Hands.EMPTY;
+    }
+
+    public boolean isOver() {
+        return round > scoring.getRoundCount();
+    }
+
+    /**
+     * @return the seat with the fewest points, the last one of them in case of a tie, like on the server
+     */
+    public int getWinner() {
+        int winner = 0;
+        for (int seat = 1; seat < PLAYERS; seat++) {
+            if (points[seat] <= points[winner]) winner = seat;
+        }
+        return winner;
+    }
+
+    public int getRound() {
+        return round;
+    }
+
+    public int getTrickNumber() {
+        return trickNumber;
+    }
+
+    public int getCurrentSeat() {
+        return currentSeat;
+    }
+
+    public long getHand(int seat) {
+        return hands[seat];
+    }
+
+    public int getPoints(int seat) {
+        return points[seat];
+    }
+
+    /**
+     * @return the cards on the table, as a bitboard
+     */
+    public long getTable() {
+        return table;
+    }
+
+    /**
+     * @return the suit of the first card on the table, or null if the table is empty
+     */
+    public Suit getLedSuit() {
+        return ledSuit;
+    }
+
+    public Scoring getScoring() {
+        return scoring;
+    }
+}
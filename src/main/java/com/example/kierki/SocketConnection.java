@@ -0,0 +1,100 @@
+package com.example.kierki;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Connection used by the blocking server, where each client has its own thread and socket.
+ * <p>
+ *     Messages are queued, and written to the socket by a writer task running on the server's executor.
+ *     At most one writer runs per connection, so frames never interleave, and it writes everything queued
+ *     since its last write with a single flush.
+ * </p>
+ */
+public class SocketConnection implements Connection {
+    private final Socket socket;
+    private final OutputStream out;
+    private final Executor writerExecutor;
+    private final OutboundQueue outbound = new OutboundQueue();
+    private final AtomicBoolean writerScheduled = new AtomicBoolean(false);
+
+    /**
+     * The class constructor.
+     * @param socket the socket accepted by the server.
+     * @param writerExecutor the executor running the connection's writer.
+     * @throws IOException in/out communication exception
+     */
+    public SocketConnection(Socket socket, Executor writerExecutor) throws IOException {
+        this.socket = socket;
+        this.out = socket.getOutputStream();
+        this.writerExecutor = writerExecutor;
+    }
+
+    /**
+     * Queues the message, and starts the writer unless it's already running. Safe to call from any thread.
+     * @param message the payload of the message, built with a MessageWriter.
+     * @param policy what to do if too many messages are already waiting for the client.
+     * @throws IOException if the socket is closed, or the queue overflowed with the DISCONNECT policy
+     */
+    @Override
+    public void send(byte[] message, OverflowPolicy policy) throws IOException {
+        if (socket.isClosed()) {
+            throw new IOException("Connection closed");
+        }
+        if (outbound.offer(message, policy) && writerScheduled.compareAndSet(false, true)) {
+            try {
+                writerExecutor.execute(this::write);
+            } catch (RejectedExecutionException e) { //the server is shutting down
+                writerScheduled.set(false);
+                throw new IOException("Connection closed", e);
+            }
+        }
+    }
+
+    /**
+     * Writes out the queued messages until the queue is empty. Messages queued while a write is in progress
+     * are picked up by the next pass, so the writer never has to be started twice.
+     */
+    private void write() {
+        List<byte[]> batch = new ArrayList<>();
+        try {
+            while (true) {
+                while (outbound.drainTo(batch) > 0) {
+                    byte[] frames = Message.frame(batch);
+                    out.write(frames);
+                    ServerMetrics.INSTANCE.bytesOut(frames.length);
+                    out.flush();
+                    batch.clear();
+                }
+
+                writerScheduled.set(false);
+                //a message queued after the last drain, but before the flag was cleared, would be left behind
+                if (outbound.isEmpty() || !writerScheduled.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            close(); //the client's own thread notices the closed socket, and cleans up after it
+        }
+    }
+
+    @Override
+    public OutboundQueue getOutboundQueue() {
+        return outbound;
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            Log.error("Couldn't close the socket", e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.kierki;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A way of choosing which card to play, used by the players of a SimulatedGame.
+ */
+@FunctionalInterface
+public interface Strategy {
+
+    /**
+     * Plays any of the allowed cards, at random.
+     */
+    Strategy RANDOM = (game, legalMoves, random) -> Card.fromByte(nthBit(legalMoves, random.nextInt(Hands.size(legalMoves))));
+
+    /**
+     * Always plays the lowest allowed card, the simplest way of avoiding tricks.
+     */
+    Strategy LOWEST = (game, legalMoves, random) -> {
+        Card lowest = null;
+        for (long remaining = legalMoves; remaining != Hands.EMPTY; remaining &= remaining - 1) {
+            Card card = Card.fromByte(Long.numberOfTrailingZeros(remaining));
+            if (lowest == null || card.getValue() < lowest.getValue()) lowest = card;
+        }
+        return lowest;
+    };
+
+    /**
+     * Chooses the card the player whose turn it is plays next.
+     * @param game the game, which can be looked at, but must not be changed.
+     * @param legalMoves the cards the player is allowed to play, as a bitboard, never empty.
+     * @param random the generator to use for any random choice, so that seeded simulations are reproducible.
+     * @return one of the allowed cards
+     */
+    Card chooseCard(SimulatedGame game, long legalMoves, RandomGenerator random);
+
+    /**
+     * @param name "random" or "lowest".
+     * @return the strategy with the given name
+     * @throws IllegalArgumentException if there is no such strategy
+     */
+    static Strategy named(String name) {
+        if (name.equals("random")) return RANDOM;
+        if (name.equals("lowest")) return LOWEST;
+        throw new IllegalArgumentException("Unknown strategy: " + name);
+    }
+
+    /**
+     * @param mask a bitboard.
+     * @param n which of the set bits to find, starting from 0.
+     * @return the index of the n-th set bit
+     */
+    private static int nthBit(long mask, int n) {
+        for (int i = 0; i < n; i++) {
+            mask &= mask - 1;
+        }
+        return Long.numberOfTrailingZeros(mask);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.kierki;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The UserRegistry keeps track of the logged in clients by their usernames.
+ * <p>
+ *     A client is found by their username in constant time, and a username is claimed atomically, so two
+ *     clients logging in with the same name at the same moment can never both succeed. The name a client
+ *     holds is kept by its ClientHandler, and is released when the client disconnects, or picks another name,
+ *     so that it can then be claimed again.
+ * </p>
+ */
+public class UserRegistry {
+    private final Map<String, ClientHandler> byName = new ConcurrentHashMap<>();
+
+    /**
+     * Gives the username to the client, unless someone else already has it.
+     * @param username the requested username.
+     * @param handler the ClientHandler of the client requesting it.
+     * @return true if the client now owns the username, false if it's taken
+     */
+    public boolean claim(String username, ClientHandler handler) {
+        if (byName.putIfAbsent(username, handler) != null) {
+            return false;
+        }
+
+        String previous = handler.getUsername();
+        if (previous != null && !previous.equals(username)) {
+            byName.remove(previous, handler); //the client picked a new name
+        }
+        handler.setUsername(username);
+        return true;
+    }
+
+    /**
+     * Frees the client's username, if it had one.
+     * @param handler the ClientHandler of the client who left.
+     */
+    public void release(ClientHandler handler) {
+        if (handler.getUsername() != null) {
+            byName.remove(handler.getUsername(), handler);
+        }
+    }
+
+    /**
+     * @param username a username.
+     * @return the ClientHandler of the client with the username, or null if nobody has it
+     */
+    public ClientHandler findByName(String username) {
+        return byName.get(username);
+    }
+}
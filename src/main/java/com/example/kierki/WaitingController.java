@@ -43,6 +43,16 @@ public class WaitingController {
         }
     }
 
+    /**
+     * A JavaFX method assigned to a button's onAction field.
+     * When the button is clicked, the client requests a computer player to take an empty seat.
+     * @throws IOException in/out communication exception
+     */
+    @FXML
+    public void addBotButton() throws IOException {
+        client.requestAddBot();
+    }
+
     /**
      * Used to stylize the waiting scene, instead of using a CSS stylesheet.
      */
@@ -1,6 +1,7 @@
 module com.example.kierki {
     requires javafx.controls;
     requires javafx.fxml;
+    requires java.management;
 
     requires org.controlsfx.controls;
     requires com.almasb.fxgl.all;
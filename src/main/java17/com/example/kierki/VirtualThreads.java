@@ -0,0 +1,20 @@
+package com.example.kierki;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Virtual threads, in the build for Java 17, which doesn't have them. Building with JDK 21 or newer activates
+ * the virtual-threads profile, which compiles the version of this class in src/main/java21 instead.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @throws UnsupportedOperationException always, the server was built without virtual threads
+     */
+    static ExecutorService newPerTaskExecutor() {
+        throw new UnsupportedOperationException("Virtual threads require the server to be built with JDK 21 or newer");
+    }
+}
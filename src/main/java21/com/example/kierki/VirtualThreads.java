@@ -0,0 +1,21 @@
+package com.example.kierki;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Virtual threads, in the build for Java 21 or newer. The build for Java 17 has its own version of this class,
+ * in src/main/java17, which doesn't support them.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return an executor starting a new virtual thread for every task
+     */
+    static ExecutorService newPerTaskExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.kierki;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientHandlerTest {
+    private static final AtomicInteger clientIds = new AtomicInteger(1_000_000); //the rooms and users are static
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    /**
+     * Keeps every message sent to the client.
+     */
+    private static class RecordingConnection implements Connection {
+        private final List<byte[]> sent = new CopyOnWriteArrayList<>();
+        private final OutboundQueue outbound = new OutboundQueue();
+
+        @Override
+        public void send(byte[] message, OverflowPolicy policy) {
+            sent.add(message);
+        }
+
+        @Override
+        public OutboundQueue getOutboundQueue() {
+            return outbound;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        /**
+         * Waits for the room's worker to send a message of the given type.
+         * @return the rest of the latest such message
+         */
+        MessageReader await(Response response) throws IOException, InterruptedException {
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (System.currentTimeMillis() < deadline) {
+                for (int i = sent.size() - 1; i >= 0; i--) {
+                    MessageReader message = new MessageReader(sent.get(i));
+                    if (sent.get(i).length > 0 && message.readResponse() == response) {
+                        return message;
+                    }
+                }
+                Thread.sleep(10);
+            }
+            return fail("No " + response + " within " + TIMEOUT_MILLIS + " ms");
+        }
+    }
+
+    private static class Player {
+        final RecordingConnection connection = new RecordingConnection();
+        final ClientHandler handler = new ClientHandler(connection, clientIds.getAndIncrement());
+
+        Player() throws IOException {
+            request(new MessageWriter().writeRequest(Request.REQUEST_USERNAME).writeString("player" + handler.getClientId()));
+        }
+
+        void request(MessageWriter message) throws IOException {
+            handler.handleMessage(message.toByteArray());
+        }
+
+        int createRoom() throws IOException, InterruptedException {
+            connection.sent.clear();
+            request(new MessageWriter().writeRequest(Request.CREATE_ROOM));
+            return connection.await(Response.ROOM_CREATED).readRoom().getRoomId();
+        }
+
+        Room joinRoom(int roomId) throws IOException, InterruptedException {
+            request(new MessageWriter().writeRequest(Request.JOIN_ROOM).writeInt(roomId));
+            return connection.await(Response.JOINED_ROOM).readRoom();
+        }
+
+        void disconnect() throws IOException {
+            request(new MessageWriter().writeRequest(Request.DISCONNECT));
+        }
+
+        List<Integer> lobby() throws IOException {
+            connection.sent.clear();
+            request(new MessageWriter().writeRequest(Request.QUERY_LOBBY)
+                    .writeLobbyQuery(new LobbyQuery(false, false, LobbyQuery.MAX_PAGE_SIZE, 0, 0)));
+            MessageReader page = new MessageReader(connection.sent.get(0));
+            assertEquals(Response.LOBBY_PAGE, page.readResponse());
+            List<Integer> roomIds = new ArrayList<>();
+            for (int i = page.readUnsignedByte(); i > 0; i--) {
+                roomIds.add(page.readRoomSummary().getRoomId());
+            }
+            return roomIds;
+        }
+    }
+
+    @Test
+    void playerLeavingAnUnfilledRoomFreesTheSeat() throws Exception {
+        Player host = new Player();
+        Player leaving = new Player();
+        int roomId = host.createRoom();
+        leaving.joinRoom(roomId);
+        host.connection.sent.clear();
+
+        leaving.disconnect();
+
+        Room update = host.connection.await(Response.ROOMS_UPDATE).readRoom();
+        assertEquals(List.of(host.handler.getClientId()), update.getConnectedPlayers());
+        assertEquals(List.of(host.handler.getClientId()), host.handler.findRoom(host.handler.getClientId()).getConnectedPlayers());
+        assertTrue(host.lobby().contains(roomId));
+
+        Player next = new Player();
+        Room joined = next.joinRoom(roomId);
+        assertEquals(List.of(host.handler.getClientId(), next.handler.getClientId()), joined.getConnectedPlayers());
+    }
+
+    @Test
+    void hostDisconnectingClosesTheRoom() throws Exception {
+        Player host = new Player();
+        Player waiting = new Player();
+        int roomId = host.createRoom();
+        waiting.joinRoom(roomId);
+
+        host.disconnect();
+
+        assertEquals(roomId, waiting.connection.await(Response.ROOM_CLOSED).readInt());
+        assertNull(host.handler.findRoom(host.handler.getClientId()));
+        assertFalse(waiting.lobby().contains(roomId));
+
+        //the player who was waiting sits in no room anymore, so they can create their own
+        int newRoomId = waiting.createRoom();
+        assertNotEquals(roomId, newRoomId);
+    }
+
+    @Test
+    void playerDisconnectingMidGameEndsTheGame() throws Exception {
+        Player host = new Player();
+        int roomId = host.createRoom();
+        List<Player> others = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Player player = new Player();
+            player.joinRoom(roomId);
+            others.add(player);
+        }
+        host.connection.await(Response.DEALT_CARDS);
+
+        others.get(0).disconnect();
+
+        for (Player player : List.of(host, others.get(1), others.get(2))) {
+            MessageReader gameOver = player.connection.await(Response.GAME_OVER);
+            gameOver.readInt(); //the room's sequence
+            assertEquals(roomId, gameOver.readInt());
+        }
+        assertNull(host.handler.findRoom(host.handler.getClientId()));
+        assertFalse(host.lobby().contains(roomId));
+    }
+}
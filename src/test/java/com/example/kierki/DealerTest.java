@@ -0,0 +1,75 @@
+package com.example.kierki;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DealerTest {
+
+    /**
+     * Deals a few rounds in a room, the way a server started with kierki.seed would.
+     * @return every seat's hand, round after round
+     */
+    private static long[] deal(Long seed, int roomId) {
+        Room room = new Room(1, roomId, "host");
+        room.setRandom(new Dealer(Dealer.DEFAULT_ALGORITHM, seed).forRoom(roomId));
+        long[] hands = new long[3 * 4];
+        for (int round = 0; round < 3; round++) {
+            room.dealHands();
+            for (int seat = 0; seat < 4; seat++) {
+                hands[round * 4 + seat] = room.getHand(seat);
+            }
+        }
+        return hands;
+    }
+
+    @Test
+    void sameSeedDealsTheSameHands() {
+        long[] first = deal(42L, 7);
+        assertArrayEquals(first, deal(42L, 7));
+
+        long dealt = Hands.EMPTY;
+        for (int seat = 0; seat < 4; seat++) {
+            assertEquals(13, Hands.size(first[seat]));
+            dealt |= first[seat];
+        }
+        assertEquals(Hands.FULL_DECK, dealt);
+    }
+
+    @Test
+    void roomsGetTheirOwnDeals() {
+        assertFalse(Arrays.equals(deal(42L, 7), deal(42L, 8)));
+        assertFalse(Arrays.equals(deal(42L, 7), deal(43L, 7)));
+    }
+
+    @Test
+    void neighbouringSeedsAndRoomsDontShareAStream() {
+        //with the seed and the room ID simply added, room 8 of seed 42 would deal like room 7 of seed 43
+        assertFalse(Arrays.equals(deal(42L, 8), deal(43L, 7)));
+
+        Set<Long> firstValues = new HashSet<>();
+        for (long seed = 40; seed < 50; seed++) {
+            Dealer dealer = new Dealer(Dealer.DEFAULT_ALGORITHM, seed);
+            for (int roomId = -10; roomId < 10; roomId++) {
+                assertTrue(firstValues.add(dealer.forRoom(roomId).nextLong()), "seed " + seed + ", room " + roomId);
+            }
+        }
+    }
+
+    @Test
+    void botsDontShareTheRoomsStreams() {
+        Set<Long> firstValues = new HashSet<>();
+        for (long seed = 40; seed < 50; seed++) {
+            Dealer dealer = new Dealer(Dealer.DEFAULT_ALGORITHM, seed);
+            for (int id = -10; id < 10; id++) {
+                //bots used to be seeded like rooms, so bot -n of seed s drew what room 0 of seed s - n dealt with
+                assertTrue(firstValues.add(dealer.forRoom(id).nextLong()), "seed " + seed + ", room " + id);
+                assertTrue(firstValues.add(dealer.forBot(id).nextLong()), "seed " + seed + ", bot " + id);
+            }
+        }
+    }
+}
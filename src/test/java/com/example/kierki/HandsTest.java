@@ -0,0 +1,68 @@
+package com.example.kierki;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HandsTest {
+
+    private static long hand(Card... cards) {
+        long hand = Hands.EMPTY;
+        for (Card card : cards) {
+            hand |= Hands.bit(card);
+        }
+        return hand;
+    }
+
+    @Test
+    void cardsAreAddedAndRemoved() {
+        Card queen = Card.of(Suit.SPADE, 12);
+        long hand = hand(Card.of(Suit.DIAMOND, 2), queen);
+
+        assertTrue(Hands.contains(hand, queen));
+        assertEquals(2, Hands.size(hand));
+
+        hand &= ~Hands.bit(queen);
+        assertFalse(Hands.contains(hand, queen));
+        assertTrue(Hands.contains(hand, Card.of(Suit.DIAMOND, 2)));
+        assertEquals(1, Hands.size(hand));
+    }
+
+    @Test
+    void everyCardHasItsOwnBit() {
+        long deck = Hands.EMPTY;
+        for (Card card : Card.deck()) {
+            assertFalse(Hands.contains(deck, card));
+            deck |= Hands.bit(card);
+        }
+        assertEquals(Hands.FULL_DECK, deck);
+        assertEquals(Card.CARDS_IN_DECK, Hands.size(deck));
+    }
+
+    @Test
+    void suitMaskHoldsExactlyTheSuit() {
+        long masks = Hands.EMPTY;
+        for (Suit suit : Suit.values()) {
+            long mask = Hands.suitMask(suit);
+            assertEquals(Card.CARDS_IN_SUIT, Hands.size(mask));
+            for (Card card : Card.deck()) {
+                assertEquals(card.getSuit() == suit, Hands.contains(mask, card), card::toString);
+            }
+            assertEquals(Hands.EMPTY, masks & mask);
+            masks |= mask;
+        }
+        assertEquals(Hands.FULL_DECK, masks);
+    }
+
+    @Test
+    void suitsInHand() {
+        long hand = hand(Card.of(Suit.HEART, 14), Card.of(Suit.CLUB, 2));
+
+        assertTrue(Hands.hasSuit(hand, Suit.HEART));
+        assertTrue(Hands.hasSuit(hand, Suit.CLUB));
+        assertFalse(Hands.hasSuit(hand, Suit.SPADE));
+        assertFalse(Hands.onlyHearts(hand));
+        assertTrue(Hands.onlyHearts(hand(Card.of(Suit.HEART, 2), Card.of(Suit.HEART, 14))));
+        assertFalse(Hands.onlyHearts(Hands.EMPTY));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.kierki;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LobbyQueryTest {
+
+    private static List<RoomSummary> lobby() {
+        List<RoomSummary> rooms = new ArrayList<>();
+        Random random = new Random(42);
+        for (int roomId = 1; roomId <= 500; roomId++) {
+            rooms.add(new RoomSummary(roomId, "host" + roomId, 1 + random.nextInt(4)));
+        }
+        Collections.shuffle(rooms, random);
+        return rooms;
+    }
+
+    /**
+     * Walks through all the pages, and collects the IDs of the rooms on them.
+     */
+    private static List<Integer> walk(LobbyQuery query, List<RoomSummary> rooms) {
+        List<Integer> seen = new ArrayList<>();
+        while (true) {
+            List<RoomSummary> page = query.select(rooms);
+            boolean more = page.size() > query.getPageSize();
+            List<RoomSummary> shown = more ? page.subList(0, query.getPageSize()) : page;
+            shown.forEach(summary -> seen.add(summary.getRoomId()));
+            if (!more) return seen;
+            query = query.after(shown.get(shown.size() - 1));
+        }
+    }
+
+    @Test
+    void pagesByFreeSeatsFollowTheFullSort() {
+        List<RoomSummary> rooms = lobby();
+        List<Integer> expected = rooms.stream()
+                .filter(summary -> summary.getFreeSeats() > 0)
+                .sorted(Comparator.comparingInt(RoomSummary::getFreeSeats).thenComparingInt(RoomSummary::getRoomId))
+                .map(RoomSummary::getRoomId)
+                .toList();
+
+        assertEquals(expected, walk(new LobbyQuery(true, true, 30, 0, 0), rooms));
+    }
+
+    @Test
+    void pagesByIdIncludeFullRooms() {
+        List<RoomSummary> rooms = lobby();
+        List<Integer> expected = new ArrayList<>();
+        for (int roomId = 1; roomId <= rooms.size(); roomId++) {
+            expected.add(roomId);
+        }
+
+        assertEquals(expected, walk(new LobbyQuery(false, false, 7, 0, 0), rooms));
+    }
+
+    @Test
+    void lastPageHasNoExtraRoom() {
+        List<RoomSummary> rooms = lobby().subList(0, 5);
+        assertEquals(5, new LobbyQuery(false, false, 5, 0, 0).select(rooms).size());
+        assertEquals(6, new LobbyQuery(false, false, 5, 0, 0).select(lobby()).size());
+        assertTrue(new LobbyQuery(false, false, 5, 0, 0).select(List.of()).isEmpty());
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.kierki;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RoomTest {
+
+    private static Room fullRoom() {
+        Room room = new Room(1, 7, "host");
+        room.addPlayer(2, "two");
+        room.addPlayer(3, "three");
+        room.addPlayer(4, "four");
+        return room;
+    }
+
+    private static Room roundTrip(Room room) throws IOException {
+        return new MessageReader(new MessageWriter().writeRoom(room).toByteArray()).readRoom();
+    }
+
+    @Test
+    void tableIsReplayedInPlayOrder() throws IOException {
+        Room room = fullRoom();
+        //the lead isn't the lowest ID, so the players' order differs from the order the cards were played in
+        room.putOnTable(3, Card.of(Suit.HEART, 5));
+        room.putOnTable(4, Card.of(Suit.HEART, 13));
+        room.putOnTable(1, Card.of(Suit.HEART, 14));
+        room.putOnTable(2, Card.of(Suit.SPADE, 14));
+
+        Room received = roundTrip(room);
+
+        assertEquals(1, room.getTrickTaker());
+        assertEquals(room.getTrickTaker(), received.getTrickTaker());
+        assertEquals(Suit.HEART, received.getLedSuit());
+        assertEquals(Card.of(Suit.HEART, 5), received.getFirstCardOnTable());
+        assertEquals(List.of(3, 4, 1, 2), List.copyOf(received.getCardsOnTable().keySet()));
+        assertEquals(room.getTableMask(), received.getTableMask());
+    }
+
+    @Test
+    void emptyTableStaysEmpty() throws IOException {
+        Room received = roundTrip(fullRoom());
+
+        assertEquals(0, received.getCardsOnTable().size());
+        assertEquals(null, received.getLedSuit());
+        assertEquals(0, received.getTrickTaker());
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.kierki;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RulesTest {
+    private static final Card TWO_OF_CLUBS = Card.of(Suit.CLUB, 2);
+    private static final Card KING_OF_CLUBS = Card.of(Suit.CLUB, 13);
+    private static final Card ACE_OF_HEARTS = Card.of(Suit.HEART, 14);
+    private static final Card FIVE_OF_HEARTS = Card.of(Suit.HEART, 5);
+    private static final Card QUEEN_OF_SPADES = Card.of(Suit.SPADE, 12);
+
+    private static long hand(Card... cards) {
+        long hand = Hands.EMPTY;
+        for (Card card : cards) {
+            hand |= Hands.bit(card);
+        }
+        return hand;
+    }
+
+    @Test
+    void mustFollowTheLedSuit() {
+        long hand = hand(TWO_OF_CLUBS, KING_OF_CLUBS, ACE_OF_HEARTS, QUEEN_OF_SPADES);
+
+        assertEquals(hand(TWO_OF_CLUBS, KING_OF_CLUBS), Rules.legalMoves(1, hand, Suit.CLUB));
+        assertTrue(Rules.isLegal(1, hand, Suit.CLUB, KING_OF_CLUBS));
+        assertFalse(Rules.isLegal(1, hand, Suit.CLUB, QUEEN_OF_SPADES));
+    }
+
+    @Test
+    void anyCardWithoutTheLedSuit() {
+        long hand = hand(TWO_OF_CLUBS, ACE_OF_HEARTS, QUEEN_OF_SPADES);
+
+        assertEquals(hand, Rules.legalMoves(1, hand, Suit.DIAMOND));
+        //following suit wins over the hearts rule, even in a round restricting the lead
+        assertEquals(hand(ACE_OF_HEARTS), Rules.legalMoves(2, hand, Suit.HEART));
+    }
+
+    @Test
+    void heartsCantOpenTheTrickInRestrictedRounds() {
+        long hand = hand(FIVE_OF_HEARTS, ACE_OF_HEARTS, QUEEN_OF_SPADES);
+
+        for (int round = 1; round <= 7; round++) {
+            long expected = Rules.restrictsHeartLead(round) ? hand(QUEEN_OF_SPADES) : hand;
+            assertEquals(expected, Rules.legalMoves(round, hand, null), "round " + round);
+        }
+        assertFalse(Rules.isLegal(5, hand, null, ACE_OF_HEARTS));
+    }
+
+    @Test
+    void heartsOpenTheTrickWhenNothingElseIsLeft() {
+        long hand = hand(FIVE_OF_HEARTS, ACE_OF_HEARTS);
+
+        assertEquals(hand, Rules.legalMoves(2, hand, null));
+        assertEquals(hand, Rules.legalMoves(7, hand, Suit.SPADE));
+    }
+
+    @Test
+    void nothingIsLegalWithAnEmptyHand() {
+        assertEquals(Hands.EMPTY, Rules.legalMoves(2, Hands.EMPTY, null));
+        assertEquals(Hands.EMPTY, Rules.legalMoves(1, Hands.EMPTY, Suit.CLUB));
+        assertFalse(Rules.isLegal(1, Hands.EMPTY, null, TWO_OF_CLUBS));
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.kierki;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ScoringTest {
+
+    @Test
+    void suitTablesAgreeWithTheCardTable() {
+        Random random = new Random(42);
+        List<Card> deck = new ArrayList<>(Card.deck());
+        for (int i = 0; i < 1000; i++) {
+            Collections.shuffle(deck, random);
+            List<Card> trick = deck.subList(0, 4);
+            long table = Hands.EMPTY;
+            for (Card card : trick) {
+                table |= Hands.bit(card);
+            }
+            int trickNumber = 1 + random.nextInt(RoundScoring.TRICKS_IN_ROUND);
+
+            for (int round = 1; round <= Scoring.STANDARD.getRoundCount(); round++) {
+                assertEquals(Scoring.STANDARD.score(round, trick, trickNumber),
+                        Scoring.STANDARD.score(round, table, trickNumber), "round " + round + ", " + trick);
+            }
+        }
+    }
+
+    @Test
+    void wholeSuitIsWorthAllItsCards() {
+        RoundScoring hearts = Scoring.STANDARD.getRound(2);
+        //a bitboard holding the whole suit never happens in a trick, but the table covers it
+        assertEquals(13 * 20, hearts.score(Hands.suitMask(Suit.HEART), 1));
+        assertEquals(0, hearts.score(Hands.FULL_DECK & ~Hands.suitMask(Suit.HEART), 1));
+        assertEquals(3500, Scoring.STANDARD.total());
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.kierki;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SimulatedGameTest {
+
+    @Test
+    void roundsAreOpenedFromTheHostsSeat() {
+        //a bot and a player with a lower ID joined, so the host sits third
+        Room room = new Room(5, 1, "host");
+        room.addPlayer(-1, "Bot 1");
+        room.addPlayer(2, "two");
+        room.addPlayer(9, "nine");
+        int hostSeat = room.getSeat(room.getHostId());
+        assertEquals(2, hostSeat);
+
+        SimulatedGame game = new SimulatedGame(Scoring.STANDARD, hostSeat);
+        SplittableRandom random = new SplittableRandom(42);
+        game.dealRound(random);
+        assertEquals(hostSeat, game.getCurrentSeat());
+
+        game.playRound(Strategy.RANDOM, random);
+        game.dealRound(random);
+        assertEquals(2, game.getRound());
+        assertEquals(3, game.getCurrentSeat());
+    }
+}